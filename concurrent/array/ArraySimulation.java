@@ -1,127 +1,365 @@
 package concurrent.array;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Driver class for testing my resizable array implementations
 
 public class ArraySimulation {
 
+    // Constants
+    private static final int NUM_THREADS = 4;
+
     public static void main(String[] args) {
 
-        // Local vars for timing and input params
-        long timeBefore, timeAfter;
+        // Input params
         int k = Integer.parseInt(args[0]);
         int m = Integer.parseInt(args[1]);
 
-        // Initialise two four-thread arrays, to test each array implementation independently
-        Thread[] tA = new Thread[4];
-        Thread[] tB = new Thread[4];
-        BlockingResizableArrayTester a = new BlockingResizableArrayTester(new BlockingResizableArray(), k, m);
-        LockFreeResizableArrayTester b = new LockFreeResizableArrayTester(new LockFreeResizableArray(), k, m);
-        for(int i=0; i<4; i++) {
-            tA[i] = new Thread(a);
-            tB[i] = new Thread(b);
+        // Time each array implementation independently
+        simulate("BlockingArray", new ResizableArrayTester(new BlockingResizableArray(), k, m), m);
+        simulate("LockFreeArray", new ResizableArrayTester(new LockFreeResizableArray(), k, m), m);
+        simulate("LockFreeSlotArray", new ResizableArrayTester(new LockFreeSlotResizableArray(), k, m), m);
+        simulate("SegmentedArray", new ResizableArrayTester(new SegmentedResizableArray(), k, m), m);
+        simulate("StampedArray", new ResizableArrayTester(new StampedResizableArray(), k, m), m);
+
+        // Read dominated workloads, at several read/write ratios
+        for(int readPercent : new int[]{50, 90, 95, 99}) {
+            System.out.printf("\n%d%% of in bounds accesses are reads\n", readPercent);
+            simulate("BlockingArray", new ResizableArrayTester(new BlockingResizableArray(), k, m, readPercent), m);
+            simulate("StampedArray", new ResizableArrayTester(new StampedResizableArray(), k, m, readPercent), m);
         }
 
-        // Time the execution of all threads in tA
-        timeBefore = System.currentTimeMillis();
-        for(Thread t : tA)
-            t.start();
-        for(Thread t : tA) {
-            try {
-                t.join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+        // Primitive workload, counters held as boxed Integers against the primitive arrays
+        System.out.println("\nPrimitive counter workload");
+        simulate("BlockingArray (boxed)", new BoxedCounterTester(new BlockingResizableArray(), k, m), m);
+        simulate("BlockingIntArray", new IntCounterTester(new BlockingIntResizableArray(), k, m), m);
+        simulate("BlockingLongArray", new LongCounterTester(new BlockingLongResizableArray(), k, m), m);
+        simulate("SegmentedArray (boxed)", new BoxedCounterTester(new SegmentedResizableArray(), k, m), m);
+        simulate("LockFreeIntArray", new IntCounterTester(new LockFreeIntResizableArray(), k, m), m);
+        simulate("LockFreeLongArray", new LongCounterTester(new LockFreeLongResizableArray(), k, m), m);
+
+        // Off heap workload, backed by a temporary file
+        try {
+            Path file = Files.createTempFile("mapped-array", ".bin");
+            file.toFile().deleteOnExit();
+            try (MappedLongResizableArray mapped = new MappedLongResizableArray(file)) {
+                simulate("MappedLongArray", new LongCounterTester(mapped, k, m), m);
             }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // Range workload, ranges accessed one element at a time against the bulk operations
+        System.out.printf("\nRanges of %d elements\n", RangeTester.RANGE);
+        simulate("BlockingArray (per element)", new RangeTester(new BlockingResizableArray(), k, m, false), m);
+        simulate("BlockingArray (bulk)", new RangeTester(new BlockingResizableArray(), k, m, true), m);
+        simulate("LockFreeArray (per element)", new RangeTester(new LockFreeResizableArray(), k, m, false), m);
+        simulate("LockFreeArray (bulk)", new RangeTester(new LockFreeResizableArray(), k, m, true), m);
+
+        // Append workload, appending through set(getSize()) against pushing onto the vector
+        for(int numThreads : new int[]{1, 4, 16}) {
+            System.out.printf("\n%d threads appending\n", numThreads);
+            simulate("LockFreeSlotArray", new AppendTester(new LockFreeSlotResizableArray(), k, m), numThreads, m);
+            simulate("SegmentedArray", new AppendTester(new SegmentedResizableArray(), k, m), numThreads, m);
+            simulate("FetchAddVector", new VectorTester(new FetchAddVector<Object>(), k, m), numThreads, m);
         }
-        timeAfter = System.currentTimeMillis();
-        System.out.println("BlockingArray execution time: "+(timeAfter-timeBefore)+"ms");
-        
-        // Time the execution of all threads in tB
-        timeBefore = System.currentTimeMillis();
-        for(Thread t : tB)
+    }
+
+    // Run NUM_THREADS threads sharing one tester
+    private static void simulate(String name, ArrayTester tester, int m) {
+        simulate(name, tester, NUM_THREADS, m);
+    }
+
+    // Run numThreads threads sharing one tester, then print the execution time
+    // and the average number of bytes allocated per operation
+    private static void simulate(String name, ArrayTester tester, int numThreads, int m) {
+
+        // Initialise the threads, all sharing one tester
+        Thread[] threads = new Thread[numThreads];
+        for(int i=0; i<numThreads; i++)
+            threads[i] = new Thread(tester);
+
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for(Thread t : threads)
             t.start();
-        for(Thread t : tB) {
+        for(Thread t : threads) {
             try {
                 t.join();
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
         }
-        timeAfter = System.currentTimeMillis();
-        System.out.println("LockFreeArray execution time: "+(timeAfter-timeBefore)+"ms");
-    }   
+        long timeAfter = System.currentTimeMillis();
+        System.out.printf("%s execution time: %dms, %.1f bytes allocated per op\n", name, timeAfter-timeBefore,
+            (double)tester.allocatedBytes.get() / ((long)numThreads * m));
+    }
 }
 
-// This class tests a BlockingResizableArray implementation
-class BlockingResizableArrayTester implements Runnable {
-    
-    // Private variables
-    private BlockingResizableArray arr;
-    private ThreadLocalRandom rng;
-    private int k;
-    private int m;
+// Base class for the array testers, which records how much each thread allocates
+abstract class ArrayTester implements Runnable {
 
-    // Basic constructor with shared BlockingResizableArray reference
-    public BlockingResizableArrayTester(BlockingResizableArray arr, int k, int m) {
-        this.arr = arr;
-        this.rng = ThreadLocalRandom.current();
+    // Shared variables
+    protected int k;
+    protected int m;
+    public AtomicLong allocatedBytes;
+
+    // Basic constructor
+    public ArrayTester(int k, int m) {
         this.k = k;
         this.m = m;
+        this.allocatedBytes = new AtomicLong(0);
     }
 
-    // Synchronized for simulation because we need atomic check size, get[size+1]
-    // Threads constructed using this runnable implementation will simulate usage as below
+    // Simulate one access to the array
+    protected abstract void access(ThreadLocalRandom rng);
+
+    // Threads constructed using this runnable implementation will simulate m accesses
     @Override
     public void run() {
-        for(int i=0; i<m; i++) {
-            if(rng.nextInt(100) >= k) {      // Access any normal part of the array
-                if(rng.nextInt(2) == 0)
-                    synchronized(this) { arr.set(rng.nextInt(arr.getSize()), new Object()); }
-                else
-                    synchronized(this) { arr.get(rng.nextInt(arr.getSize())); }
-            } else {                               // Access one past the end of the array
-                if(rng.nextInt(2) == 0)
-                    synchronized(this) { arr.set(arr.getSize(), new Object()); }
-                else
-                    synchronized(this) { arr.get(arr.getSize()); }
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        long before = allocatedBytes();
+        for(int i=0; i<m; i++)
+            access(rng);
+        allocatedBytes.addAndGet(allocatedBytes() - before);
+    }
+
+    // Bytes allocated so far by the current thread
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
+
+// This class tests a ResizableArray implementation
+class ResizableArrayTester extends ArrayTester {
+
+    // Private variables
+    private ResizableArray arr;
+    private int readPercent;
+
+    // Basic constructor with shared ResizableArray reference, reads and writes equally likely
+    public ResizableArrayTester(ResizableArray arr, int k, int m) {
+        this(arr, k, m, 50);
+    }
+
+    // Constructor with a chance of in bounds accesses being reads
+    public ResizableArrayTester(ResizableArray arr, int k, int m, int readPercent) {
+        super(k, m);
+        this.arr = arr;
+        this.readPercent = readPercent;
+    }
+
+    // Accesses one past the end are synchronized, because we need an atomic check
+    // size, get[size]. Accesses inside the array are always in bounds as the size
+    // only ever grows, so they are left to run concurrently.
+    @Override
+    protected void access(ThreadLocalRandom rng) {
+        if(rng.nextInt(100) >= k) {      // Access any normal part of the array
+            if(rng.nextInt(100) >= readPercent)
+                arr.set(rng.nextInt(arr.getSize()), new Object());
+            else
+                arr.get(rng.nextInt(arr.getSize()));
+        } else {                               // Access one past the end of the array
+            if(rng.nextInt(2) == 0)
+                synchronized(this) { arr.set(arr.getSize(), new Object()); }
+            else
+                synchronized(this) { arr.get(arr.getSize()); }
+        }
+    }
+}
+
+// This class tests a ResizableArray holding boxed Integer counters
+class BoxedCounterTester extends ArrayTester {
+
+    // Private variables
+    private ResizableArray arr;
+
+    // Basic constructor with shared ResizableArray reference
+    public BoxedCounterTester(ResizableArray arr, int k, int m) {
+        super(k, m);
+        this.arr = arr;
+    }
+
+    // Same access pattern as IntCounterTester, but a counter is updated by reading it
+    // and storing a new boxed value. That isn't atomic, as ResizableArray has no CAS,
+    // but it costs what a boxed counter costs.
+    @Override
+    protected void access(ThreadLocalRandom rng) {
+        if(rng.nextInt(100) >= k) {      // Access any normal part of the array
+            int i = rng.nextInt(arr.getSize());
+            int op = rng.nextInt(4);
+            if(op == 0) {
+                arr.get(i);
+            } else {
+                Object o = arr.get(i);
+                int delta = op == 2 ? rng.nextInt(1, 16) : 1;
+                arr.set(i, Integer.valueOf((o == null ? 0 : (Integer)o) + delta));
             }
+        } else {                               // Access one past the end of the array
+            if(rng.nextInt(2) == 0)
+                synchronized(this) { arr.set(arr.getSize(), Integer.valueOf(rng.nextInt(1 << 20))); }
+            else
+                synchronized(this) { arr.get(arr.getSize()); }
         }
     }
 }
 
-// This class tests a LockFreeResizableArray implementation
-class LockFreeResizableArrayTester implements Runnable {
+// This class tests an IntResizableArray holding counters
+class IntCounterTester extends ArrayTester {
 
     // Private variables
-    private LockFreeResizableArray arr;
-    private ThreadLocalRandom rng;
-    private int k;
-    private int m;
+    private IntResizableArray arr;
 
-    // Basic constructor with shared LockFreeResizableArray reference
-    public LockFreeResizableArrayTester(LockFreeResizableArray arr, int k, int m) {
+    // Basic constructor with shared IntResizableArray reference
+    public IntCounterTester(IntResizableArray arr, int k, int m) {
+        super(k, m);
         this.arr = arr;
-        this.rng = ThreadLocalRandom.current();
-        this.k = k;
-        this.m = m;
     }
 
-    // Synchronized for simulation because we need atomic check size, get[size+1]
-    // Threads constructed using this runnable implementation will simulate usage as below
+    // In bounds accesses read a counter, or bump it with incrementAndGet(), getAndAdd()
+    // or a compareAndSet() loop, so the atomic element operations are what's measured
     @Override
-    public void run() {
-        for(int i=0; i<m; i++) {
-            if(rng.nextInt(100) >= k) {      // Access any normal part of the array
-                if(rng.nextInt(2) == 0)
-                    synchronized(this) { arr.set(rng.nextInt(arr.getSize()), new Object()); }
+    protected void access(ThreadLocalRandom rng) {
+        if(rng.nextInt(100) >= k) {      // Access any normal part of the array
+            int i = rng.nextInt(arr.getSize());
+            switch(rng.nextInt(4)) {
+                case 0:  arr.get(i); break;
+                case 1:  arr.incrementAndGet(i); break;
+                case 2:  arr.getAndAdd(i, rng.nextInt(1, 16)); break;
+                default:
+                    int v;
+                    do {
+                        v = arr.get(i);
+                    } while(!arr.compareAndSet(i, v, v + 1));
+            }
+        } else {                               // Access one past the end of the array
+            if(rng.nextInt(2) == 0)
+                synchronized(this) { arr.set(arr.getSize(), rng.nextInt(1 << 20)); }
+            else
+                synchronized(this) { arr.get(arr.getSize()); }
+        }
+    }
+}
+
+// This class tests a LongResizableArray holding counters
+class LongCounterTester extends ArrayTester {
+
+    // Private variables
+    private LongResizableArray arr;
+
+    // Basic constructor with shared LongResizableArray reference
+    public LongCounterTester(LongResizableArray arr, int k, int m) {
+        super(k, m);
+        this.arr = arr;
+    }
+
+    // Same access pattern as IntCounterTester, on longs
+    @Override
+    protected void access(ThreadLocalRandom rng) {
+        if(rng.nextInt(100) >= k) {      // Access any normal part of the array
+            int i = rng.nextInt(arr.getSize());
+            switch(rng.nextInt(4)) {
+                case 0:  arr.get(i); break;
+                case 1:  arr.incrementAndGet(i); break;
+                case 2:  arr.getAndAdd(i, rng.nextInt(1, 16)); break;
+                default:
+                    long v;
+                    do {
+                        v = arr.get(i);
+                    } while(!arr.compareAndSet(i, v, v + 1));
+            }
+        } else {                               // Access one past the end of the array
+            if(rng.nextInt(2) == 0)
+                synchronized(this) { arr.set(arr.getSize(), rng.nextLong(1L << 40)); }
+            else
+                synchronized(this) { arr.get(arr.getSize()); }
+        }
+    }
+}
+
+// This class reads and writes whole ranges of a BulkResizableArray
+class RangeTester extends ArrayTester {
+
+    // Private variables
+    public static final int RANGE = 16;
+    private BulkResizableArray arr;
+    private boolean bulk;
+
+    // Basic constructor with shared BulkResizableArray reference, and whether
+    // ranges go through the bulk operations or one element at a time
+    public RangeTester(BulkResizableArray arr, int k, int m, boolean bulk) {
+        super(k, m);
+        this.arr = arr;
+        this.bulk = bulk;
+    }
+
+    // Same access pattern as ResizableArrayTester, but in bounds accesses cover a
+    // whole range. Ranges are always in bounds as the size only ever grows.
+    @Override
+    protected void access(ThreadLocalRandom rng) {
+        if(rng.nextInt(100) >= k) {      // Access a range of the array
+            int from = rng.nextInt(arr.getSize() - RANGE + 1);
+            if(rng.nextInt(2) == 0) {
+                Object o = new Object();
+                if(bulk)
+                    arr.fill(from, from + RANGE, o);
                 else
-                    synchronized(this) { arr.get(rng.nextInt(arr.getSize())); }
-            } else {                               // Access one past the end of the array
-                if(rng.nextInt(2) == 0)
-                    synchronized(this) { arr.set(arr.getSize(), new Object()); }
+                    for(int i=from; i<from+RANGE; i++)
+                        arr.set(i, o);
+            } else {
+                if(bulk)
+                    arr.getRange(from, from + RANGE);
                 else
-                    synchronized(this) { arr.get(arr.getSize()); }
+                    for(int i=from; i<from+RANGE; i++)
+                        arr.get(i);
             }
+        } else {                               // Access one past the end of the array
+            synchronized(this) { arr.set(arr.getSize(), new Object()); }
         }
     }
-}
\ No newline at end of file
+}
+
+// This class appends to a ResizableArray through the extend on i == size path
+class AppendTester extends ArrayTester {
+
+    // Private variables
+    private ResizableArray arr;
+
+    // Basic constructor with shared ResizableArray reference
+    public AppendTester(ResizableArray arr, int k, int m) {
+        super(k, m);
+        this.arr = arr;
+    }
+
+    // Synchronized because we need an atomic check size, set[size]
+    @Override
+    protected void access(ThreadLocalRandom rng) {
+        synchronized(this) { arr.set(arr.getSize(), new Object()); }
+    }
+}
+
+// This class tests a FetchAddVector implementation
+class VectorTester extends ArrayTester {
+
+    // Private variables
+    private FetchAddVector<Object> vector;
+
+    // Basic constructor with shared FetchAddVector reference
+    public VectorTester(FetchAddVector<Object> vector, int k, int m) {
+        super(k, m);
+        this.vector = vector;
+    }
+
+    // Append, or with a k% chance pop the last element instead
+    @Override
+    protected void access(ThreadLocalRandom rng) {
+        if(rng.nextInt(100) >= k)
+            vector.pushBack(new Object());
+        else
+            vector.popBack();
+    }
+}
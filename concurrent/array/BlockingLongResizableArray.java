@@ -0,0 +1,154 @@
+package concurrent.array;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Resizable thread safe array of primitive longs using blocking synchronisation,
+// controlled by log2(n) locks exactly like BlockingResizableArray. Elements are
+// stored unboxed in a long[], so no operation allocates outside of extend().
+
+// Each element operation holds its chunk's lock, which is what makes the read
+// modify write operations atomic. The lock indices are computed with a leading
+// zero count rather than Math.log, so the hot paths stay cheap.
+
+public class BlockingLongResizableArray implements LongResizableArray {
+
+    // Private data
+    private long[] arr;
+    private ReentrantLock[] locks;
+    private int size;
+
+    // Basic contructor initialses a long array of length 20, and a lock
+    // array of length log2(20)(rounded up)
+    public BlockingLongResizableArray() {
+
+        size = 20;
+        arr = new long[size];
+        locks = new ReentrantLock[getNumLocks(size)];
+        for(int i=0; i<getNumLocks(size); i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    // Thread safe read operation
+    @Override
+    public long get(int i) {
+        ReentrantLock lock = lockFor(i);
+        try {
+            return arr[i];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe write operation
+    @Override
+    public void set(int i, long value) {
+        ReentrantLock lock = lockFor(i);
+        try {
+            arr[i] = value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe compare and set operation
+    @Override
+    public boolean compareAndSet(int i, long expected, long value) {
+        ReentrantLock lock = lockFor(i);
+        try {
+            if(arr[i] != expected)
+                return false;
+            arr[i] = value;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe fetch and add operation
+    @Override
+    public long getAndAdd(int i, long delta) {
+        ReentrantLock lock = lockFor(i);
+        try {
+            long old = arr[i];
+            arr[i] = old + delta;
+            return old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe increment operation
+    @Override
+    public long incrementAndGet(int i) {
+        return getAndAdd(i, 1) + 1;
+    }
+
+    // Returns the size of the array. This is useful to allow our simulator to
+    // access outside of the array bounds, thus forcing a resize.
+    @Override
+    public int getSize() { return size; }
+
+    // Extend if needed, then acquire and return the lock for the chunk holding index i
+    private ReentrantLock lockFor(int i) {
+
+        // Ensure size check and potential extension appear atomic
+        ReentrantLock lock;
+        synchronized(this) {
+            if(i == size)
+                this.extend();
+            if(i > size)
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+            lock = locks[getLockIndex(i)];
+        }
+        lock.lock();
+        return lock;
+    }
+
+    // Extend the array with 10 new zeroes, and extend the lock array if necessary
+    private void extend() {
+
+        // Acquire all locks in ascending order
+        for(ReentrantLock l : locks)
+            l.lock();
+
+        int oldNumLocks = locks.length;
+        try {
+            this.size+=10;
+            long[] new_arr = new long[size];
+
+            // If necessary, extend the locks array. Locks are copied by reference
+            // which prevents other threads waiting on the lock from getting lost.
+            if(getLockIndex(size)+1 > locks.length) {
+                ReentrantLock[] new_locks = new ReentrantLock[getNumLocks(size)];
+                for(int i=0; i<locks.length; i++)                  // Copy old locks
+                    new_locks[i] = locks[i];
+                for(int i=locks.length; i<new_locks.length; i++)   // Pad with new locks
+                    new_locks[i] = new ReentrantLock();
+                locks = new_locks;
+            }
+
+            // Extend the long arr
+            System.arraycopy(arr, 0, new_arr, 0, arr.length);
+            this.arr = new_arr;
+        }
+
+        // Release all old locks in descending order
+        finally {
+            for(int i=oldNumLocks-1; i>=0; i--)
+                locks[i].unlock();
+        }
+    }
+
+    // Calculate the number of locks needed for a given number of longs, ceil(log2(n))
+    private static int getNumLocks(int n) {
+
+        if(n<=1) return 0;
+        return 32 - Integer.numberOfLeadingZeros(n-1);
+    }
+
+    // Calculate the lock index given an array index, floor(log2(i))
+    private static int getLockIndex(int i) {
+
+        if(i==0) return 0;
+        return 31 - Integer.numberOfLeadingZeros(i);
+    }
+}
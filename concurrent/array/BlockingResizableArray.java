@@ -1,4 +1,5 @@
 package concurrent.array;
+import java.util.Arrays;
 import java.util.concurrent.locks.ReentrantLock;
 
 // Resizable thread safe array implementation using blocking synchronisation,
@@ -9,7 +10,10 @@ import java.util.concurrent.locks.ReentrantLock;
 // [0-1] [2-3] [4-7] [8-15] [16-31]... This offers a nice trade off between
 // performace and memory usage, whilst still remaining relatively simple.
 
-public class BlockingResizableArray {
+// Range operations take the lock of every chunk the range touches once, in
+// ascending order, rather than a monitor and a lock per element.
+
+public class BlockingResizableArray implements BulkResizableArray {
 
     // Private data
     private static final double LOG_BASE = 2.0;
@@ -29,6 +33,7 @@ public class BlockingResizableArray {
     }
 
     // Thread safe read operation
+    @Override
     public Object get(int i) {
         
         // Ensure size check and potential extension appear atomic
@@ -47,6 +52,7 @@ public class BlockingResizableArray {
     }
 
     // Thread safe write operation
+    @Override
     public void set(int i, Object o) {
 
         // Ensure size check and potential extension appear atomic
@@ -64,6 +70,75 @@ public class BlockingResizableArray {
         }
     }
 
+    // Thread safe snapshot of the elements in [from, to)
+    @Override
+    public Object[] getRange(int from, int to) {
+        checkRange(from, to);
+        if(from == to)
+            return new Object[0];
+
+        lockRange(from, to);
+        try {
+            return Arrays.copyOfRange(arr, from, to);
+        } finally {
+            unlockRange(from, to);
+        }
+    }
+
+    // Thread safe write of values into the range starting at from
+    @Override
+    public void setRange(int from, Object[] values) {
+        copyFrom(values, 0, from, values.length);
+    }
+
+    // Thread safe write of o into every element in [from, to)
+    @Override
+    public void fill(int from, int to, Object o) {
+        checkRange(from, to);
+        if(from == to)
+            return;
+
+        lockRange(from, to);
+        try {
+            Arrays.fill(arr, from, to, o);
+        } finally {
+            unlockRange(from, to);
+        }
+    }
+
+    // Thread safe copy of len elements from src[srcPos] into the array at destPos
+    @Override
+    public void copyFrom(Object[] src, int srcPos, int destPos, int len) {
+        checkRange(destPos, destPos + len);
+        if(len == 0)
+            return;
+
+        lockRange(destPos, destPos + len);
+        try {
+            System.arraycopy(src, srcPos, arr, destPos, len);
+        } finally {
+            unlockRange(destPos, destPos + len);
+        }
+    }
+
+    // Throw if [from, to) isn't within the array
+    private synchronized void checkRange(int from, int to) {
+        if(from < 0 || from > to || to > size)
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), Size: " + size);
+    }
+
+    // Acquire the locks of every chunk in [from, to) in ascending order
+    private void lockRange(int from, int to) {
+        for(int l=getLockIndex(from); l<=getLockIndex(to-1); l++)
+            locks[l].lock();
+    }
+
+    // Release the locks of every chunk in [from, to) in descending order
+    private void unlockRange(int from, int to) {
+        for(int l=getLockIndex(to-1); l>=getLockIndex(from); l--)
+            locks[l].unlock();
+    }
+
     // Extend the array with 10 new null Objects, and extend the lock array if necessary
     private void extend() {
 
@@ -103,6 +178,7 @@ public class BlockingResizableArray {
 
     // Returns the size of the array. This is useful to allow our simulator to
     // access outside of the array bounds, thus forcing a resize.
+    @Override
     public int getSize() { return size; }
 
     // Calculate the number of locks needed for a given number of Objects
@@ -0,0 +1,13 @@
+package concurrent.array;
+
+// Interface for resizable arrays which can also operate on a contiguous range of
+// elements at once. Ranges are half open, [from, to), must lie within the current
+// size, and never extend the array. Each operation is atomic as a whole, so
+// getRange() returns a consistent snapshot of the range.
+
+public interface BulkResizableArray extends ResizableArray {
+    Object[] getRange(int from, int to);
+    void setRange(int from, Object[] values);
+    void fill(int from, int to, Object o);
+    void copyFrom(Object[] src, int srcPos, int destPos, int len);
+}
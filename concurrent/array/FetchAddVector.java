@@ -0,0 +1,120 @@
+package concurrent.array;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Thread safe vector with pushBack() and popBack() at its end, using blocking
+// synchronization, where pushes reserve their index with a single fetch and add,
+// as in Dechev et al's vector.
+
+// Elements live in buckets which double in size, bucket k holding 32 << k slots,
+// hanging off a fixed spine that is allocated up front, so buckets never move
+// and the spine is never republished. Whenever a push lands on the first slot of
+// a bucket it also allocates the next bucket, so pushes almost never find their
+// bucket missing. pushBack() is a getAndIncrement() on the tail and one write to
+// its own slot, so concurrent appends never retry on a shared CAS. A null slot
+// means empty, so null elements can't be stored.
+
+// It is not lock free. Dechev et al keep pops lock free with write descriptors,
+// which put every push through a CAS on one descriptor, so pushes here skip them.
+// Instead, popBack() waits for the push that reserved its index to write it, and a
+// pushBack() waits for a popBack() still emptying its slot, so a descheduled thread
+// can hold up the other. Pushes alone never wait on each other.
+
+public class FetchAddVector<T> {
+
+    // Internal data
+    private static final int FIRST_SHIFT = 5;
+    private static final int FIRST_BUCKET = 1 << FIRST_SHIFT;
+    private static final int NUM_BUCKETS = 31 - FIRST_SHIFT;
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> buckets;
+    private final AtomicInteger tail;   // Next index to be reserved
+    private final AtomicInteger size;   // Number of completed writes still in the vector
+
+    // Basic constructor, allocates the spine and the first bucket
+    public FetchAddVector() {
+        buckets = new AtomicReferenceArray<AtomicReferenceArray<T>>(NUM_BUCKETS);
+        buckets.set(0, new AtomicReferenceArray<T>(FIRST_BUCKET));
+        tail    = new AtomicInteger(0);
+        size    = new AtomicInteger(0);
+    }
+
+    // Append an item, returning the index it was written to
+    public int pushBack(T item) {
+        if (item == null)
+            throw new NullPointerException("FetchAddVector can't hold null elements");
+
+        // Reserve an index with a single fetch and add
+        int i = tail.getAndIncrement();
+        int j = i + FIRST_BUCKET;
+        int k = bucketIndex(j);
+        if (j == FIRST_BUCKET << k)
+            allocateBucket(k + 1);              // First slot of bucket k, allocate the next one ahead
+        AtomicReferenceArray<T> bucket = allocateBucket(k);
+
+        // The slot can still hold an element whose popBack() hasn't finished taking it
+        int offset = j - (FIRST_BUCKET << k);
+        while (!bucket.compareAndSet(offset, null, item))
+            Thread.onSpinWait();
+        size.incrementAndGet();
+        return i;
+    }
+
+    // Remove and return the last item, or null if the vector is empty
+    public T popBack() {
+
+        // Release the last reserved index
+        int t;
+        do {
+            if ((t = tail.get()) == 0)
+                return null;
+        } while (!tail.compareAndSet(t, t - 1));
+
+        // Wait for the push that reserved it to finish its write, then take the item
+        int j = t - 1 + FIRST_BUCKET;
+        int k = bucketIndex(j);
+        AtomicReferenceArray<T> bucket = allocateBucket(k);
+        int offset = j - (FIRST_BUCKET << k);
+        T item;
+        while ((item = bucket.getAndSet(offset, null)) == null)
+            Thread.onSpinWait();
+        size.decrementAndGet();
+        return item;
+    }
+
+    // Get the item at index i, or null if its push hasn't completed yet
+    public T get(int i) {
+        int reserved = tail.get();
+        if (i < 0 || i >= reserved)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + reserved);
+        int j = i + FIRST_BUCKET;
+        int k = bucketIndex(j);
+        AtomicReferenceArray<T> bucket = buckets.get(k);
+        return bucket == null ? null : bucket.get(j - (FIRST_BUCKET << k));
+    }
+
+    // Number of completed writes. Reserved slots still being written are not counted.
+    public int size() {
+        return size.get();
+    }
+
+    // Thread safe emptiness check - Atomic at the point of reading
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    // Bucket k starts at index (FIRST_BUCKET << k) - FIRST_BUCKET, so after offsetting
+    // the index by FIRST_BUCKET the bucket is given by the position of its top bit
+    private static int bucketIndex(int j) {
+        return (31 - Integer.numberOfLeadingZeros(j)) - FIRST_SHIFT;
+    }
+
+    // Return bucket k, allocating it if nobody has yet
+    private AtomicReferenceArray<T> allocateBucket(int k) {
+        AtomicReferenceArray<T> bucket = buckets.get(k);
+        if (bucket == null && k < NUM_BUCKETS) {
+            buckets.compareAndSet(k, null, new AtomicReferenceArray<T>(FIRST_BUCKET << k));
+            bucket = buckets.get(k);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,14 @@
+package concurrent.array;
+
+// Interface for thread safe resizable arrays of primitive ints, so elements are
+// never boxed. Accessing index getSize() extends the array, while any index
+// beyond that is out of bounds. The element operations are atomic.
+
+public interface IntResizableArray {
+    int get(int i);
+    void set(int i, int value);
+    boolean compareAndSet(int i, int expected, int value);
+    int getAndAdd(int i, int delta);
+    int incrementAndGet(int i);
+    int getSize();
+}
@@ -0,0 +1,109 @@
+package concurrent.array;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Resizable thread safe array of primitive longs, using only lock free methods.
+
+// Elements are stored unboxed in power of two sized long[] chunks under an
+// atomically published spine, laid out exactly like SegmentedResizableArray.
+// Chunks never move once published, so every element operation is a single
+// VarHandle access on its slot and never races a copy. Only growing the array
+// allocates, every other operation is allocation free.
+
+public class LockFreeLongResizableArray implements LongResizableArray {
+
+    // Internal data
+    private static final int INITIAL_SIZE = 20;
+    private static final int EXTEND_BY    = 10;
+    private static final int FIRST_SHIFT  = 5;
+    private static final int FIRST_CHUNK  = 1 << FIRST_SHIFT;
+    private static final VarHandle SLOT   = MethodHandles.arrayElementVarHandle(long[].class);
+    private final AtomicReference<long[][]> spine;
+    private final AtomicInteger size;
+
+    // Constructor
+    public LockFreeLongResizableArray() {
+
+        // Initialize with size 20 to match the other implementations
+        spine = new AtomicReference<long[][]>(new long[][]{ new long[FIRST_CHUNK] });
+        size  = new AtomicInteger(INITIAL_SIZE);
+    }
+
+    // Get the long at index i, extending by 10 if i is one beyond the array limit
+    @Override
+    public long get(int i) {
+        checkIndex(i);
+        int j = i + FIRST_CHUNK;
+        int k = chunkIndex(j);
+        return (long)SLOT.getVolatile(spine.get()[k], j - (FIRST_CHUNK << k));
+    }
+
+    // Set the long at index i, extending by 10 if i is one beyond the array limit
+    @Override
+    public void set(int i, long value) {
+        checkIndex(i);
+        int j = i + FIRST_CHUNK;
+        int k = chunkIndex(j);
+        SLOT.setVolatile(spine.get()[k], j - (FIRST_CHUNK << k), value);
+    }
+
+    // Atomically set the long at index i to value if it currently holds expected
+    @Override
+    public boolean compareAndSet(int i, long expected, long value) {
+        checkIndex(i);
+        int j = i + FIRST_CHUNK;
+        int k = chunkIndex(j);
+        return SLOT.compareAndSet(spine.get()[k], j - (FIRST_CHUNK << k), expected, value);
+    }
+
+    // Atomically add delta to the long at index i, returning the previous value
+    @Override
+    public long getAndAdd(int i, long delta) {
+        checkIndex(i);
+        int j = i + FIRST_CHUNK;
+        int k = chunkIndex(j);
+        return (long)SLOT.getAndAdd(spine.get()[k], j - (FIRST_CHUNK << k), delta);
+    }
+
+    // Atomically increment the long at index i, returning the new value
+    @Override
+    public long incrementAndGet(int i) {
+        return getAndAdd(i, 1) + 1;
+    }
+
+    // Get the current array size
+    @Override
+    public int getSize() { return size.get(); }
+
+    // Chunk k starts at index (FIRST_CHUNK << k) - FIRST_CHUNK, so after offsetting
+    // the index by FIRST_CHUNK the chunk is given by the position of its top bit
+    private static int chunkIndex(int j) {
+        return (31 - Integer.numberOfLeadingZeros(j)) - FIRST_SHIFT;
+    }
+
+    // Extend if i is one past the end, and throw if it is beyond that
+    private void checkIndex(int i) {
+        int currentSize;
+        while (i >= (currentSize = size.get())) {
+            if (i != currentSize)
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + currentSize);
+
+            // Make sure the chunks are there before the new size is published
+            int lastIndex = currentSize + EXTEND_BY - 1;
+            while (spine.get().length <= chunkIndex(lastIndex + FIRST_CHUNK))
+                attemptAddChunk();
+            size.compareAndSet(currentSize, currentSize + EXTEND_BY);
+        }
+    }
+
+    // Publish a spine with one more chunk. Only the spine references are copied.
+    private void attemptAddChunk() {
+        long[][] currentSpine = spine.get();
+        long[][] newSpine     = Arrays.copyOf(currentSpine, currentSpine.length + 1);
+        newSpine[currentSpine.length] = new long[FIRST_CHUNK << currentSpine.length];
+        spine.compareAndSet(currentSpine, newSpine);
+    }
+}
@@ -1,27 +1,33 @@
 package concurrent.array;
-import java.util.concurrent.atomic.AtomicStampedReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
 
 // Resizable thread safe array implementation, using only lock free methods.
 
-public class LockFreeResizableArray {
+// A published array is never modified, so a range read is just a copy out of the
+// current array, and is always a consistent snapshot. A range write makes one
+// copy of the array and publishes it with a single CAS.
 
-    // Atomic stamped reference to the array allows for atomic get, set and extend
-    private AtomicStampedReference<Object[]> arrayRef;
+public class LockFreeResizableArray implements BulkResizableArray {
+
+    // Atomic reference to the array allows for atomic get, set and extend
+    private AtomicReference<Object[]> arrayRef;
 
     // Constructor
     public LockFreeResizableArray() {
 
         // Initialize with size 20 to match q1a implementation
         Object[] initialArray = new Object[20];
-        arrayRef = new AtomicStampedReference<>(initialArray, 0);
+        arrayRef = new AtomicReference<>(initialArray);
     }
 
     // Get object from index i, extending by 10 if i is one beyond the array limit
+    @Override
     public Object get(int i) {
 
         // Loop until we successfully get the value or extend the array
         while (true) {
-            Object[] currentArray = arrayRef.getReference();
+            Object[] currentArray = arrayRef.get();
             int currentSize = currentArray.length;
             
             // Check if we need to extend
@@ -39,12 +45,12 @@ public class LockFreeResizableArray {
     }
 
     // Set an object at index i, extending by 10 if i is one beyond the array limit
+    @Override
     public void set(int i, Object o) {
 
         // Loop until we successfully set the value or extend the array
         while (true) {
-            int[] stampHolder = new int[1];
-            Object[] currentArray = arrayRef.get(stampHolder);
+            Object[] currentArray = arrayRef.get();
             int currentSize = currentArray.length;
             
             // Check if we need to extend
@@ -57,7 +63,7 @@ public class LockFreeResizableArray {
                 newArray[i] = o;
                 
                 // Try to atomically update the array reference
-                if (arrayRef.compareAndSet(currentArray, newArray, stampHolder[0], (stampHolder[0]+1) % Integer.MAX_VALUE)) {
+                if (arrayRef.compareAndSet(currentArray, newArray)) {
                     return; // Success
                 }
                 // If CAS fails, retry the loop with the latest array
@@ -68,15 +74,67 @@ public class LockFreeResizableArray {
         }
     }
 
+    // Snapshot of the elements in [from, to), taken from one published array
+    @Override
+    public Object[] getRange(int from, int to) {
+        Object[] currentArray = arrayRef.get();
+        checkRange(from, to, currentArray.length);
+        return Arrays.copyOfRange(currentArray, from, to);
+    }
+
+    // Write values into the range starting at from
+    @Override
+    public void setRange(int from, Object[] values) {
+        copyFrom(values, 0, from, values.length);
+    }
+
+    // Write o into every element in [from, to) with one copy and CAS
+    @Override
+    public void fill(int from, int to, Object o) {
+
+        // Loop until the filled copy is published
+        while (true) {
+            Object[] currentArray = arrayRef.get();
+            checkRange(from, to, currentArray.length);
+
+            Object[] newArray = currentArray.clone();
+            Arrays.fill(newArray, from, to, o);
+            if (arrayRef.compareAndSet(currentArray, newArray))
+                return;
+        }
+    }
+
+    // Copy len elements from src[srcPos] into the array at destPos with one copy and CAS
+    @Override
+    public void copyFrom(Object[] src, int srcPos, int destPos, int len) {
+
+        // Loop until the updated copy is published
+        while (true) {
+            Object[] currentArray = arrayRef.get();
+            checkRange(destPos, destPos + len, currentArray.length);
+
+            Object[] newArray = currentArray.clone();
+            System.arraycopy(src, srcPos, newArray, destPos, len);
+            if (arrayRef.compareAndSet(currentArray, newArray))
+                return;
+        }
+    }
+
     // Get the current array size (for the q1.java driver program to use)
-    public int getSize() { return arrayRef.getReference().length; }
+    @Override
+    public int getSize() { return arrayRef.get().length; }
     
+    // Throw if [from, to) isn't within an array of the given size
+    private static void checkRange(int from, int to, int currentSize) {
+        if (from < 0 || from > to || to > currentSize)
+            throw new IndexOutOfBoundsException("Range: [" + from + ", " + to + "), Size: " + currentSize);
+    }
+
     // Extend the array by 10 elements
     private void attemptExtend(int currentSize) {
 
-        // Get current array and stamp for the CAS operation
-        int[] stampHolder = new int[1];
-        Object[] currentArray = arrayRef.get(stampHolder);
+        // Get current array for the CAS operation
+        Object[] currentArray = arrayRef.get();
         
         // Create a new array with 10 more elements
         Object[] newArray = new Object[currentSize + 10];
@@ -84,7 +142,7 @@ public class LockFreeResizableArray {
         // Copy elements from the old array
         System.arraycopy(currentArray, 0, newArray, 0, currentSize);
 
-        // Try to atomically update both the array reference and size
-        arrayRef.compareAndSet(currentArray, newArray, stampHolder[0], (stampHolder[0]+1) % Integer.MAX_VALUE);
+        // Try to atomically update the array reference, and with it the size
+        arrayRef.compareAndSet(currentArray, newArray);
     }
 }
\ No newline at end of file
@@ -0,0 +1,162 @@
+package concurrent.array;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Resizable thread safe array implementation, using only lock free methods.
+
+// Unlike LockFreeResizableArray, element writes are a single CAS on one slot of
+// the backing Object[] through a VarHandle, so a set() never copies the array.
+// Extensions still grow the logical size by 10, but the table underneath doubles
+// its capacity, so most extensions are a single CAS on the size and only the
+// rare capacity growth publishes a new table. While that happens, every thread
+// that runs into the new table helps migrate slots across: a slot is first
+// frozen (so no more writes can land in it), then copied into the new table,
+// then marked as moved.
+
+public class LockFreeSlotResizableArray implements ResizableArray {
+
+    // Slot markers used during migration
+    private static final Object MOVED = new Object(); // Slot lives in the next table now
+    private static final Object UNSET = new Object(); // New slot still waiting for its old value
+    private static final class Frozen {
+        final Object value;
+        Frozen(Object value) { this.value = value; }
+    }
+
+    // A published table, plus the migration state for the one that replaces it
+    private static final class Table {
+        final Object[] slots;
+        final AtomicReference<Table> next;
+        final AtomicInteger claimIndex; // Slots [0, claimIndex) have been claimed for migration
+        final AtomicInteger migrated;   // Slots known to have been migrated
+        Table(int size, int copied) {
+            this.slots      = new Object[size];
+            Arrays.fill(slots, 0, copied, UNSET);
+            this.next       = new AtomicReference<Table>(null);
+            this.claimIndex = new AtomicInteger(0);
+            this.migrated   = new AtomicInteger(0);
+        }
+    }
+
+    // Internal data
+    private static final int INITIAL_SIZE    = 20;
+    private static final int EXTEND_BY       = 10;
+    private static final int MIGRATE_STRIDE  = 64;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private final AtomicReference<Table> current;
+    private final AtomicInteger size;
+
+    // Constructor
+    public LockFreeSlotResizableArray() {
+
+        // Initialize with size 20 to match the other implementations
+        current = new AtomicReference<Table>(new Table(INITIAL_SIZE, 0));
+        size    = new AtomicInteger(INITIAL_SIZE);
+    }
+
+    // Get object from index i, extending by 10 if i is one beyond the array limit
+    @Override
+    public Object get(int i) {
+        Table t = checkIndex(i);
+        while (true) {
+            Object v = SLOT.getVolatile(t.slots, i);
+            if (v == MOVED) {
+                t = t.next.get();             // Slot already migrated, follow it
+            } else if (v instanceof Frozen) {
+                return ((Frozen)v).value;     // Frozen value is still the latest value
+            } else {
+                return v;
+            }
+        }
+    }
+
+    // Set an object at index i, extending by 10 if i is one beyond the array limit
+    @Override
+    public void set(int i, Object o) {
+        Table t = checkIndex(i);
+        while (true) {
+            Object v = SLOT.getVolatile(t.slots, i);
+            if (v == MOVED) {
+                t = t.next.get();             // Slot already migrated, follow it
+            } else if (v instanceof Frozen) {
+                migrateSlot(t, i);            // Finish the migration, then write to the next table
+                t = t.next.get();
+            } else if (SLOT.compareAndSet(t.slots, i, v, o)) {
+                return;                       // Success, a later migration will carry o across
+            }
+        }
+    }
+
+    // Get the current array size
+    @Override
+    public int getSize() { return size.get(); }
+
+    // Extend if i is one past the end, throw if it is beyond that, and return a
+    // table that is large enough to hold index i
+    private Table checkIndex(int i) {
+        int currentSize;
+        while (i >= (currentSize = size.get())) {
+            if (i != currentSize)
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + currentSize);
+
+            // Make sure the capacity is there before the new size is published
+            Table t;
+            while ((t = current.get()).slots.length < currentSize + EXTEND_BY)
+                attemptGrow(t);
+            size.compareAndSet(currentSize, currentSize + EXTEND_BY);
+        }
+        return current.get();
+    }
+
+    // Publish a table with double the capacity if nobody has yet, then help migrate t into it
+    private void attemptGrow(Table t) {
+        int capacity = t.slots.length;
+        if (t.next.get() == null)
+            t.next.compareAndSet(null, new Table(capacity * 2, capacity));
+        Table next = t.next.get();
+
+        // Claim strides of slots and migrate them
+        int lo;
+        while ((lo = t.claimIndex.getAndAdd(MIGRATE_STRIDE)) < capacity) {
+            int hi = Math.min(capacity, lo + MIGRATE_STRIDE);
+            for (int i = lo; i < hi; i++)
+                migrateSlot(t, i);
+            t.migrated.addAndGet(hi - lo);
+        }
+
+        // If another claimer hasn't finished yet, sweep every slot rather than
+        // waiting on it. Migrating a slot twice is harmless.
+        if (t.migrated.get() < capacity && current.get() == t)
+            for (int i = 0; i < capacity; i++)
+                migrateSlot(t, i);
+        current.compareAndSet(t, next);
+    }
+
+    // Freeze slot i, copy the frozen value into the next table, then mark it moved.
+    // Every step is idempotent, so any number of threads can race through this.
+    private void migrateSlot(Table t, int i) {
+        Table next = t.next.get();
+        while (true) {
+            Object v = SLOT.getVolatile(t.slots, i);
+            if (v == MOVED)
+                return;
+
+            Frozen f;
+            if (v instanceof Frozen) {
+                f = (Frozen)v;
+            } else {
+                f = new Frozen(v);
+                if (!SLOT.compareAndSet(t.slots, i, v, f))
+                    continue;                 // A write got in first, freeze that instead
+            }
+
+            // Only the first copy lands, and the old slot can only move on to MOVED
+            SLOT.compareAndSet(next.slots, i, UNSET, f.value);
+            SLOT.compareAndSet(t.slots, i, f, MOVED);
+            return;
+        }
+    }
+}
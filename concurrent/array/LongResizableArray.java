@@ -0,0 +1,14 @@
+package concurrent.array;
+
+// Interface for thread safe resizable arrays of primitive longs, so elements are
+// never boxed. Accessing index getSize() extends the array, while any index
+// beyond that is out of bounds. The element operations are atomic.
+
+public interface LongResizableArray {
+    long get(int i);
+    void set(int i, long value);
+    boolean compareAndSet(int i, long expected, long value);
+    long getAndAdd(int i, long delta);
+    long incrementAndGet(int i);
+    int getSize();
+}
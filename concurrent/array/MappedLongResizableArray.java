@@ -0,0 +1,219 @@
+package concurrent.array;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Resizable thread safe array of primitive longs stored off heap, in a memory
+// mapped file, using blocking synchronisation.
+
+// The file is mapped in regions which double in size, just like the log2(n)
+// chunks of BlockingResizableArray, and each region is guarded by its own lock.
+// For a first region of 1024 longs the regions are [0-1023] [1024-3071]
+// [3072-7167]... Regions stop doubling at 1GB, as a single mapping can't exceed
+// 2GB, and every region after that is 1GB. Growing only maps one more region,
+// so nothing is ever copied, and since the data lives outside the heap the GC
+// never has to scan it. The size is kept in a small header at the start of the
+// file, so reopening the same file after a restart picks up where it left off.
+
+public class MappedLongResizableArray implements LongResizableArray, AutoCloseable {
+
+    // File layout constants
+    private static final long MAGIC        = 0x4d4150504544524cL; // "MAPPEDRL"
+    private static final int HEADER_BYTES  = 64;
+    private static final int MAGIC_OFFSET  = 0;
+    private static final int SIZE_OFFSET   = 8;
+    private static final int RECORD_BYTES  = Long.BYTES;
+
+    // Region layout constants
+    private static final int INITIAL_SIZE  = 20;
+    private static final int EXTEND_BY     = 10;
+    private static final int FIRST_SHIFT   = 10;
+    private static final int FIRST_REGION  = 1 << FIRST_SHIFT;
+    private static final int MAX_SHIFT     = 27;                        // 1GB of longs
+    private static final int NUM_DOUBLING  = MAX_SHIFT - FIRST_SHIFT + 1;
+    private static final long DOUBLING_END = (long)FIRST_REGION << NUM_DOUBLING;
+
+    // Private data
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private volatile MappedByteBuffer[] regions;
+    private volatile ReentrantLock[] locks;
+    private volatile int size;
+
+    // Open (or create) the array backed by the given file
+    public MappedLongResizableArray(Path file) throws IOException {
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean existing = channel.size() >= HEADER_BYTES;
+        header  = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        regions = new MappedByteBuffer[0];
+        locks   = new ReentrantLock[0];
+
+        // Reopen an existing array, or initialise a new one with size 20
+        if(existing) {
+            if(header.getLong(MAGIC_OFFSET) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a MappedLongResizableArray file: " + file);
+            }
+            size = (int)header.getLong(SIZE_OFFSET);
+        } else {
+            size = INITIAL_SIZE;
+            header.putLong(SIZE_OFFSET, size);
+            header.putLong(MAGIC_OFFSET, MAGIC);
+        }
+        mapRegionsFor(size);
+    }
+
+    // Thread safe read operation
+    @Override
+    public long get(int i) {
+        int r = regionIndex(i);
+        ReentrantLock lock = lockFor(i, r);
+        try {
+            return regions[r].getLong(offset(i, r));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe write operation
+    @Override
+    public void set(int i, long value) {
+        int r = regionIndex(i);
+        ReentrantLock lock = lockFor(i, r);
+        try {
+            regions[r].putLong(offset(i, r), value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe compare and set operation
+    @Override
+    public boolean compareAndSet(int i, long expected, long value) {
+        int r = regionIndex(i);
+        ReentrantLock lock = lockFor(i, r);
+        try {
+            int offset = offset(i, r);
+            if(regions[r].getLong(offset) != expected)
+                return false;
+            regions[r].putLong(offset, value);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe fetch and add operation
+    @Override
+    public long getAndAdd(int i, long delta) {
+        int r = regionIndex(i);
+        ReentrantLock lock = lockFor(i, r);
+        try {
+            int offset = offset(i, r);
+            long old = regions[r].getLong(offset);
+            regions[r].putLong(offset, old + delta);
+            return old;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Thread safe increment operation
+    @Override
+    public long incrementAndGet(int i) {
+        return getAndAdd(i, 1) + 1;
+    }
+
+    // Returns the size of the array
+    @Override
+    public int getSize() { return size; }
+
+    // Flush every region and the header out to the file
+    public void force() {
+        for(MappedByteBuffer region : regions)
+            region.force();
+        header.force();
+    }
+
+    // Flush and close the backing file. The mappings are released by the GC.
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    // Extend if i is one past the end, then acquire and return the lock for region r
+    private ReentrantLock lockFor(int i, int r) {
+        if(i >= size)
+            extend(i);
+        ReentrantLock lock = locks[r];
+        lock.lock();
+        return lock;
+    }
+
+    // Grow the array by 10 if i is one past the end, mapping a new region if needed.
+    // Existing regions are never touched, so no region lock has to be taken.
+    private synchronized void extend(int i) {
+        if(i == size) {
+            mapRegionsFor(size + EXTEND_BY);
+            header.putLong(SIZE_OFFSET, size + EXTEND_BY);
+            size += EXTEND_BY;                   // Published after the regions it needs
+        }
+        if(i > size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+    }
+
+    // Map regions and create their locks until n elements fit
+    private synchronized void mapRegionsFor(int n) {
+        if(n == 0 || regionIndex(n-1) < regions.length)
+            return;
+
+        int numRegions = regionIndex(n-1) + 1;
+        MappedByteBuffer[] newRegions = Arrays.copyOf(regions, numRegions);
+        ReentrantLock[] newLocks      = Arrays.copyOf(locks, numRegions);
+        try {
+            for(int r=regions.length; r<numRegions; r++) {
+                long position = HEADER_BYTES + regionStart(r) * RECORD_BYTES;
+                newRegions[r] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long)regionLength(r) * RECORD_BYTES);
+                newLocks[r]   = new ReentrantLock();
+            }
+        } catch(IOException e) {
+            throw new UncheckedIOException("Failed to map a new region", e);
+        }
+
+        // Locks are copied by reference, so threads waiting on one can't get lost
+        locks   = newLocks;
+        regions = newRegions;
+    }
+
+    // Calculate the region index for an array index
+    private static int regionIndex(int i) {
+        long j = (long)i + FIRST_REGION;
+        if(j < DOUBLING_END)
+            return (63 - Long.numberOfLeadingZeros(j)) - FIRST_SHIFT;
+        return NUM_DOUBLING + (int)((j - DOUBLING_END) >> MAX_SHIFT);
+    }
+
+    // Calculate the first array index held by region r
+    private static long regionStart(int r) {
+        if(r < NUM_DOUBLING)
+            return ((long)FIRST_REGION << r) - FIRST_REGION;
+        return DOUBLING_END - FIRST_REGION + ((long)(r - NUM_DOUBLING) << MAX_SHIFT);
+    }
+
+    // Calculate the number of longs held by region r
+    private static int regionLength(int r) {
+        return FIRST_REGION << Math.min(r, NUM_DOUBLING - 1);
+    }
+
+    // Calculate the byte offset of index i within region r
+    private static int offset(int i, int r) {
+        return (int)(i - regionStart(r)) * RECORD_BYTES;
+    }
+}
@@ -0,0 +1,10 @@
+package concurrent.array;
+
+// Generic interface for thread safe resizable arrays. Accessing index getSize()
+// extends the array, while any index beyond that is out of bounds.
+
+public interface ResizableArray {
+    Object get(int i);
+    void set(int i, Object o);
+    int getSize();
+}
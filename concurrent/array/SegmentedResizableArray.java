@@ -0,0 +1,86 @@
+package concurrent.array;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Resizable thread safe array implementation, made of power of two sized chunks
+// hanging off an atomically published spine, using only lock free methods.
+
+// Chunk k holds FIRST_CHUNK << k elements, so for FIRST_CHUNK = 32 the chunks
+// cover [0-31] [32-95] [96-223] [224-479]... Growing the array only allocates
+// one new chunk and publishes a spine with one more reference in it, so the
+// existing elements are never copied and never move. Finding the chunk for an
+// index is just a leading zero count, which keeps get() and set() O(1).
+
+public class SegmentedResizableArray implements ResizableArray {
+
+    // Internal data
+    private static final int INITIAL_SIZE = 20;
+    private static final int EXTEND_BY    = 10;
+    private static final int FIRST_SHIFT  = 5;
+    private static final int FIRST_CHUNK  = 1 << FIRST_SHIFT;
+    private static final VarHandle SLOT   = MethodHandles.arrayElementVarHandle(Object[].class);
+    private final AtomicReference<Object[][]> spine;
+    private final AtomicInteger size;
+
+    // Constructor
+    public SegmentedResizableArray() {
+
+        // Initialize with size 20 to match the other implementations
+        spine = new AtomicReference<Object[][]>(new Object[][]{ new Object[FIRST_CHUNK] });
+        size  = new AtomicInteger(INITIAL_SIZE);
+    }
+
+    // Get object from index i, extending by 10 if i is one beyond the array limit
+    @Override
+    public Object get(int i) {
+        checkIndex(i);
+        int j = i + FIRST_CHUNK;
+        int k = chunkIndex(j);
+        return SLOT.getVolatile(spine.get()[k], j - (FIRST_CHUNK << k));
+    }
+
+    // Set an object at index i, extending by 10 if i is one beyond the array limit
+    @Override
+    public void set(int i, Object o) {
+        checkIndex(i);
+        int j = i + FIRST_CHUNK;
+        int k = chunkIndex(j);
+        SLOT.setVolatile(spine.get()[k], j - (FIRST_CHUNK << k), o);
+    }
+
+    // Get the current array size
+    @Override
+    public int getSize() { return size.get(); }
+
+    // Chunk k starts at index (FIRST_CHUNK << k) - FIRST_CHUNK, so after offsetting
+    // the index by FIRST_CHUNK the chunk is given by the position of its top bit
+    private static int chunkIndex(int j) {
+        return (31 - Integer.numberOfLeadingZeros(j)) - FIRST_SHIFT;
+    }
+
+    // Extend if i is one past the end, and throw if it is beyond that
+    private void checkIndex(int i) {
+        int currentSize;
+        while (i >= (currentSize = size.get())) {
+            if (i != currentSize)
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + currentSize);
+
+            // Make sure the chunks are there before the new size is published
+            int lastIndex = currentSize + EXTEND_BY - 1;
+            while (spine.get().length <= chunkIndex(lastIndex + FIRST_CHUNK))
+                attemptAddChunk();
+            size.compareAndSet(currentSize, currentSize + EXTEND_BY);
+        }
+    }
+
+    // Publish a spine with one more chunk. Only the spine references are copied.
+    private void attemptAddChunk() {
+        Object[][] currentSpine = spine.get();
+        Object[][] newSpine     = Arrays.copyOf(currentSpine, currentSpine.length + 1);
+        newSpine[currentSpine.length] = new Object[FIRST_CHUNK << currentSpine.length];
+        spine.compareAndSet(currentSpine, newSpine);
+    }
+}
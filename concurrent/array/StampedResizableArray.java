@@ -0,0 +1,132 @@
+package concurrent.array;
+import java.util.concurrent.locks.StampedLock;
+
+// Resizable thread safe array implementation using optimistic reads, controlled
+// by log2(n) StampedLocks laid out exactly like the ReentrantLocks of
+// BlockingResizableArray, so chunks are [0-1] [2-3] [4-7] [8-15] [16-31]...
+
+// BlockingResizableArray enters its monitor and then a chunk lock on every read,
+// so reads contend with each other even though they never conflict. Here a read
+// takes an optimistic stamp from its chunk's lock, reads the element, and only
+// falls back to a real read lock if a write or extension invalidated the stamp.
+// Writes take their chunk's write lock, and extension takes the write lock of
+// every chunk, so a read-dominated workload runs almost entirely lock free.
+
+public class StampedResizableArray implements ResizableArray {
+
+    // Private data
+    private volatile Object[] arr;
+    private volatile StampedLock[] locks;
+    private volatile int size;
+
+    // Basic contructor initialses an object array of length 20, and a lock
+    // array of length log2(20)(rounded up)
+    public StampedResizableArray() {
+
+        size = 20;
+        arr = new Object[size];
+        StampedLock[] initialLocks = new StampedLock[getNumLocks(size)];
+        for(int i=0; i<initialLocks.length; i++)
+            initialLocks[i] = new StampedLock();
+        locks = initialLocks;
+    }
+
+    // Thread safe read operation, optimistic unless a write got in the way
+    @Override
+    public Object get(int i) {
+        if(i >= size)
+            extend(i);
+
+        // Read under an optimistic stamp, and validate that nothing was written meanwhile
+        StampedLock lock = locks[getLockIndex(i)];
+        long stamp = lock.tryOptimisticRead();
+        Object o = arr[i];
+        if(lock.validate(stamp))
+            return o;
+
+        // Fall back to a real read lock
+        stamp = lock.readLock();
+        try {
+            return arr[i];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Thread safe write operation
+    @Override
+    public void set(int i, Object o) {
+        if(i >= size)
+            extend(i);
+
+        // Acquire the corresponding chunk's write lock, then write
+        StampedLock lock = locks[getLockIndex(i)];
+        long stamp = lock.writeLock();
+        try {
+            arr[i] = o;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Returns the size of the array. This is useful to allow our simulator to
+    // access outside of the array bounds, thus forcing a resize.
+    @Override
+    public int getSize() { return size; }
+
+    // Extend the array with 10 new null Objects if i is one past the end, and
+    // extend the lock array if necessary. Throws if i is beyond that.
+    private synchronized void extend(int i) {
+        if(i > size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        if(i < size)
+            return;
+
+        // Take an exclusive stamp on every chunk in ascending order, which
+        // invalidates every optimistic read in flight
+        StampedLock[] oldLocks = locks;
+        long[] stamps = new long[oldLocks.length];
+        for(int l=0; l<oldLocks.length; l++)
+            stamps[l] = oldLocks[l].writeLock();
+
+        try {
+            int newSize = size + 10;
+            Object[] new_arr = new Object[newSize];
+            System.arraycopy(arr, 0, new_arr, 0, size);
+
+            // If necessary, extend the locks array. Locks are copied by reference
+            // which prevents other threads waiting on the lock from getting lost.
+            if(getNumLocks(newSize) > oldLocks.length) {
+                StampedLock[] new_locks = new StampedLock[getNumLocks(newSize)];
+                System.arraycopy(oldLocks, 0, new_locks, 0, oldLocks.length);
+                for(int l=oldLocks.length; l<new_locks.length; l++) // Pad with new locks
+                    new_locks[l] = new StampedLock();
+                locks = new_locks;
+            }
+
+            // Publish the new array before the size that makes its new slots reachable
+            arr = new_arr;
+            size = newSize;
+        }
+
+        // Release all old locks in descending order
+        finally {
+            for(int l=oldLocks.length-1; l>=0; l--)
+                oldLocks[l].unlockWrite(stamps[l]);
+        }
+    }
+
+    // Calculate the number of locks needed for a given number of Objects, ceil(log2(n))
+    private static int getNumLocks(int n) {
+
+        if(n<=1) return 1;
+        return 32 - Integer.numberOfLeadingZeros(n-1);
+    }
+
+    // Calculate the lock index given an array index, floor(log2(i))
+    private static int getLockIndex(int i) {
+
+        if(i==0) return 0;
+        return 31 - Integer.numberOfLeadingZeros(i);
+    }
+}
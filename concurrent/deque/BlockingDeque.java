@@ -88,6 +88,18 @@ public class BlockingDeque<T> implements Deque<T> {
         return oldTail.get();
     }
 
+    // Remove the object at the front of the deque, or return null if it is empty
+    @Override
+    public synchronized T pollFirst() {
+        return isEmpty() ? null : removeFirst();
+    }
+
+    // Remove the object at the back of the deque, or return null if it is empty
+    @Override
+    public synchronized T pollLast() {
+        return isEmpty() ? null : removeLast();
+    }
+
     // Get, but do not remove, the object at the front of the deque
     @Override
     public synchronized T getFirst() {
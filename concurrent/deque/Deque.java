@@ -1,6 +1,7 @@
 package concurrent.deque;
 
-// Generic thread safe deque interface
+// Generic thread safe deque interface. pollFirst() and pollLast() never wait, so
+// deques whose removes wait override them.
 
 public interface Deque<T> {
     void addFirst(T item);
@@ -11,4 +12,14 @@ public interface Deque<T> {
     T getLast();
     boolean isEmpty();
     int size();
+
+    // Remove the first item, returning null rather than waiting if the deque is empty
+    default T pollFirst() {
+        return removeFirst();
+    }
+
+    // Remove the last item, returning null rather than waiting if the deque is empty
+    default T pollLast() {
+        return removeLast();
+    }
 }
\ No newline at end of file
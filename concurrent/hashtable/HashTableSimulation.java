@@ -48,6 +48,8 @@ public class HashTableSimulation {
         for (StringBuilder log : logsA)
             System.out.println(log);
         System.out.println("CoarseBlockingHashTable execution time: " + (timeAfter - timeBefore) + "ms");
+        System.out.println("CoarseBlockingHashTable throughput: " + (4L * m / Math.max(1, timeAfter - timeBefore)) + " ops/ms");
+        System.out.println("CoarseBlockingHashTable final size: " + coarseBlockingHashTable.size() + "\n");
 
         // Time the execution of all threads in tB
         timeBefore = System.currentTimeMillis();
@@ -64,6 +66,8 @@ public class HashTableSimulation {
         for (StringBuilder log : logsB)
             System.out.println(log);
         System.out.println("FineBlockingHashTable execution time: " + (timeAfter - timeBefore) + "ms");
+        System.out.println("FineBlockingHashTable throughput: " + (4L * m / Math.max(1, timeAfter - timeBefore)) + " ops/ms");
+        System.out.println("FineBlockingHashTable final size: " + fineBlockingHashTable.size() + "\n");
 
         // Time the execution of all threads in tC
         timeBefore = System.currentTimeMillis();
@@ -80,6 +84,8 @@ public class HashTableSimulation {
         for (StringBuilder log : logsC)
             System.out.println(log);
         System.out.println("LockFreeHashTable execution time: " + (timeAfter - timeBefore) + "ms");
+        System.out.println("LockFreeHashTable throughput: " + (4L * m / Math.max(1, timeAfter - timeBefore)) + " ops/ms");
+        System.out.println("LockFreeHashTable final size: " + lockFreeHashTable.size() + "\n");
     }
 }
 
@@ -1,41 +1,276 @@
 package concurrent.hashtable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 // Thread-safe hash table implementation using lock free synchronization
 
+// Each bucket holds an immutable chain of entries which is replaced as a whole
+// with a single CAS on the bucket. Resizing is cooperative: the thread that
+// crosses the load factor publishes a Resize descriptor, and every thread that
+// runs into it claims a stride of buckets to migrate, leaving a Forward entry
+// behind in each migrated bucket. No thread ever takes a lock.
+
 public class LockFreeHashTable<K,V> {
 
+    // Immutable entry structure, so a bucket can be swapped with one CAS
+    private static class Entry<K,V> {
+        final int hash;
+        final K key;
+        final V value;
+        final Entry<K,V> next;
+        Entry(int hash, K key, V value, Entry<K,V> next) {
+            this.hash  = hash;
+            this.key   = key;
+            this.value = value;
+            this.next  = next;
+        }
+    }
+
+    // Marker left in a migrated bucket, pointing readers and writers at the new table
+    private static final class Forward<K,V> extends Entry<K,V> {
+        final AtomicReferenceArray<Entry<K,V>> nextTable;
+        Forward(AtomicReferenceArray<Entry<K,V>> nextTable) {
+            super(0, null, null, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    // Shared state of an in progress resize, helped along by any thread
+    private static final class Resize<K,V> {
+        final AtomicReferenceArray<Entry<K,V>> oldTable;
+        final AtomicReferenceArray<Entry<K,V>> newTable;
+        final Forward<K,V> forward;
+        final AtomicInteger transferIndex; // Buckets [0, transferIndex) are unclaimed
+        final AtomicInteger remaining;     // Buckets not yet migrated
+        Resize(AtomicReferenceArray<Entry<K,V>> oldTable) {
+            this.oldTable      = oldTable;
+            this.newTable      = new AtomicReferenceArray<Entry<K,V>>(oldTable.length() * 2);
+            this.forward       = new Forward<K,V>(newTable);
+            this.transferIndex = new AtomicInteger(oldTable.length());
+            this.remaining     = new AtomicInteger(oldTable.length());
+        }
+    }
+
+    // Internal data
+    private final float LOAD_FACTOR = 0.75f;
+    private final int INITIAL_SIZE  = 16;
+    private final int MIN_STRIDE    = 16;
+    private volatile AtomicReferenceArray<Entry<K,V>> table;
+    private final AtomicReference<Resize<K,V>> resize;
+    private final AtomicInteger numKeys;
+
     // Basic constructor
     public LockFreeHashTable() {
-        // TODO
+        table   = new AtomicReferenceArray<Entry<K,V>>(INITIAL_SIZE);
+        resize  = new AtomicReference<Resize<K,V>>(null);
+        numKeys = new AtomicInteger(0);
     }
 
-    // Thread-safe insertion
+    // Thread-safe insertion, returns the previous value or null if the key was absent
     public V put(K key, V value) {
-        return null;
-        // TODO
+
+        // Both key and value must not be null
+        if (key == null || value == null)
+            return null;
+
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<Entry<K,V>> tab = table;
+        while (true) {
+            int index        = hash & (tab.length() - 1);
+            Entry<K,V> first = tab.get(index);
+
+            // Bucket already migrated, help the resize along then follow it
+            if (first instanceof Forward) {
+                tab = helpResize(tab, (Forward<K,V>)first);
+                continue;
+            }
+
+            // Search the chain for a match
+            Entry<K,V> match = find(first, hash, key);
+            Entry<K,V> newFirst;
+            if (match != null)
+                newFirst = replace(first, match, new Entry<K,V>(hash, key, value, match.next));
+            else
+                newFirst = new Entry<K,V>(hash, key, value, first);
+
+            // Swap in the new chain, or retry against whatever beat us to it
+            if (tab.compareAndSet(index, first, newFirst)) {
+                if (match != null)
+                    return match.value;
+                if (numKeys.incrementAndGet() > tab.length() * LOAD_FACTOR)
+                    startResize(tab);
+                return null;
+            }
+        }
     }
 
     // Thread-safe get
     public V get(K key) {
-        return null;
-        // TODO
+
+        // The key cannot be null
+        if (key == null)
+            return null;
+
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<Entry<K,V>> tab = table;
+        while (true) {
+            Entry<K,V> first = tab.get(hash & (tab.length() - 1));
+
+            // Readers never help, they just follow the forwarding entry
+            if (first instanceof Forward) {
+                tab = ((Forward<K,V>)first).nextTable;
+                continue;
+            }
+            Entry<K,V> match = find(first, hash, key);
+            return match == null ? null : match.value;
+        }
     }
 
-    // Thread-safe removal
+    // Thread-safe removal, returns the removed value or null if the key was absent
     public V remove(K key) {
-        return null;
-        // TODO
+
+        // The key cannot be null
+        if (key == null)
+            return null;
+
+        int hash = spread(key.hashCode());
+        AtomicReferenceArray<Entry<K,V>> tab = table;
+        while (true) {
+            int index        = hash & (tab.length() - 1);
+            Entry<K,V> first = tab.get(index);
+
+            // Bucket already migrated, help the resize along then follow it
+            if (first instanceof Forward) {
+                tab = helpResize(tab, (Forward<K,V>)first);
+                continue;
+            }
+
+            // Nothing to do if the key is absent
+            Entry<K,V> match = find(first, hash, key);
+            if (match == null)
+                return null;
+
+            // Swap in the chain without the match, or retry
+            if (tab.compareAndSet(index, first, replace(first, match, match.next))) {
+                numKeys.decrementAndGet();
+                return match.value;
+            }
+        }
     }
 
-    // Thread-safe size retrieval
+    // Thread-safe size retrieval - Atomic at the point of reading
     public int size() {
-        return -1;
-        // TODO
+        return numKeys.get();
     }
 
-    // Thread-safe empty check
+    // Thread-safe empty check - Atomic at the point of reading
     public boolean isEmpty() {
-        return true;
-        // TODO
+        return numKeys.get() == 0;
+    }
+
+    // Spread the higher bits downwards, as power of two tables only use the low bits
+    private static int spread(int h) {
+        return (h ^ (h >>> 16)) & 0x7fffffff;
+    }
+
+    // Find the entry for key in a chain, or null if it isn't present
+    private Entry<K,V> find(Entry<K,V> e, int hash, K key) {
+        for (; e != null; e = e.next)
+            if (e.hash == hash && e.key.equals(key))
+                return e;
+        return null;
+    }
+
+    // Copy the chain up to target, then splice in the replacement tail
+    private Entry<K,V> replace(Entry<K,V> e, Entry<K,V> target, Entry<K,V> tail) {
+        if (e == target)
+            return tail;
+        return new Entry<K,V>(e.hash, e.key, e.value, replace(e.next, target, tail));
+    }
+
+    // Publish a resize descriptor for tab if nobody else has, then help migrate it
+    private void startResize(AtomicReferenceArray<Entry<K,V>> tab) {
+        Resize<K,V> r = resize.get();
+        if (r == null) {
+            // Only resize the current table, a stale one has already been replaced
+            if (tab != table)
+                return;
+            Resize<K,V> newResize = new Resize<K,V>(tab);
+            if (resize.compareAndSet(null, newResize)) {
+                // Another thread may have resized tab in between, so take ours back if so
+                if (tab != table) {
+                    resize.compareAndSet(newResize, null);
+                    return;
+                }
+                r = newResize;
+            } else {
+                r = resize.get();
+            }
+        }
+        if (r != null)
+            transfer(r);
+    }
+
+    // Help migrate the resize we ran into, then continue in the table it points to
+    private AtomicReferenceArray<Entry<K,V>> helpResize(AtomicReferenceArray<Entry<K,V>> tab, Forward<K,V> f) {
+        Resize<K,V> r = resize.get();
+        if (r != null && r.oldTable == tab)
+            transfer(r);
+        return f.nextTable;
+    }
+
+    // Claim strides of buckets and migrate them until none remain unclaimed
+    private void transfer(Resize<K,V> r) {
+
+        // Tables are only ever replaced by newer ones, so a descriptor for a table which
+        // is no longer current is stale for good. Clear it rather than migrate anything.
+        if (r.oldTable != table) {
+            resize.compareAndSet(r, null);
+            return;
+        }
+
+        int n      = r.oldTable.length();
+        int stride = Math.max(MIN_STRIDE, n / (4 * Runtime.getRuntime().availableProcessors()));
+        while (true) {
+            int hi = r.transferIndex.get();
+            if (hi <= 0)
+                return;
+            int lo = Math.max(0, hi - stride);
+            if (!r.transferIndex.compareAndSet(hi, lo))
+                continue;
+
+            for (int i = hi - 1; i >= lo; i--)
+                migrate(r, i, n);
+
+            // The thread that migrates the last bucket publishes the new table
+            if (r.remaining.addAndGet(lo - hi) == 0) {
+                table = r.newTable;
+                resize.compareAndSet(r, null);
+                return;
+            }
+        }
+    }
+
+    // Split bucket i into buckets i and i+n of the new table, then forward it.
+    // Only the claiming thread writes these two new buckets until the forward
+    // is in place, so plain sets are enough and a failed CAS just recopies.
+    private void migrate(Resize<K,V> r, int i, int n) {
+        while (true) {
+            Entry<K,V> first = r.oldTable.get(i);
+            if (first instanceof Forward)
+                return;                            // Already migrated, never copy a forward
+            Entry<K,V> lo = null, hi = null;
+            for (Entry<K,V> e = first; e != null; e = e.next) {
+                if ((e.hash & n) == 0)
+                    lo = new Entry<K,V>(e.hash, e.key, e.value, lo);
+                else
+                    hi = new Entry<K,V>(e.hash, e.key, e.value, hi);
+            }
+            r.newTable.set(i, lo);
+            r.newTable.set(i + n, hi);
+            if (r.oldTable.compareAndSet(i, first, r.forward))
+                return;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package concurrent.pool;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import concurrent.stack.LockFreeStack;
+import concurrent.stack.Stack;
+
+// Thread-safe pool of reusable objects, built on the project's stacks.
+
+// Each thread keeps a small magazine of pooled objects in front of a shared depot
+// stack, so most acquires and releases never touch shared state at all. When a
+// thread's magazine runs dry it refills it from the depot with one popN(), and when
+// it overflows it hands half of it back with one pushAll(), so the depot is only
+// contended once per batch. Objects are reset as they are released, and new ones are
+// made by the factory whenever both the magazine and the depot are empty. Objects in
+// the magazine of a thread that has finished are left for the GC.
+
+public class ObjectPool<T> {
+
+    // Internal data
+    private static final int DEFAULT_MAGAZINE_SIZE = 16;
+    private final Supplier<T> factory;
+    private final Consumer<T> reset;
+    private final Stack<T> depot;
+    private final int magazineSize;
+    private final ThreadLocal<List<T>> magazines;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    // Basic constructor, with a lock free depot and magazines of 16 objects
+    public ObjectPool(Supplier<T> factory, Consumer<T> reset) {
+        this(factory, reset, new LockFreeStack<T>(), DEFAULT_MAGAZINE_SIZE);
+    }
+
+    // Constructor with the depot stack to use and the size of each thread's magazine
+    public ObjectPool(Supplier<T> factory, Consumer<T> reset, Stack<T> depot, int magazineSize) {
+        if(magazineSize <= 0)
+            throw new IllegalArgumentException("Magazine size must be positive: " + magazineSize);
+        this.factory      = factory;
+        this.reset        = reset;
+        this.depot        = depot;
+        this.magazineSize = magazineSize;
+        this.magazines    = ThreadLocal.withInitial(() -> new ArrayList<T>(magazineSize));
+        this.hits         = new LongAdder();
+        this.misses       = new LongAdder();
+    }
+
+    // Take an object from the pool, or make a new one if the pool is empty
+    public T acquire() {
+        List<T> magazine = magazines.get();
+
+        // Refill an empty magazine from the depot
+        if(magazine.isEmpty())
+            magazine.addAll(depot.popN(magazineSize));
+
+        if(magazine.isEmpty()) {
+            misses.increment();
+            return factory.get();
+        }
+        hits.increment();
+        return magazine.remove(magazine.size() - 1);
+    }
+
+    // Reset an object and return it to the pool
+    public void release(T item) {
+        reset.accept(item);
+        List<T> magazine = magazines.get();
+
+        // Hand the older half of a full magazine back to the depot, or its only object
+        // if it holds just one
+        if(magazine.size() >= magazineSize) {
+            List<T> half = magazine.subList(0, Math.max(1, magazineSize / 2));
+            depot.pushAll(half);
+            half.clear();
+        }
+        magazine.add(item);
+    }
+
+    // Number of acquires served from the pool
+    public long getHits() { return hits.sum(); }
+
+    // Number of acquires which had to make a new object
+    public long getMisses() { return misses.sum(); }
+}
@@ -0,0 +1,111 @@
+package concurrent.pool;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import concurrent.stack.BlockingStack;
+import concurrent.stack.LockFreeStack;
+
+// Driver class for testing my object pool
+
+public class PoolSimulation {
+
+    // Constants
+    private static final int NUM_THREADS = 4;
+    static final int BUFFER_SIZE = 4096;
+    private static final int MAGAZINE_SIZE = 16;
+
+    public static void main(String[] args) {
+
+        // Input params
+        int k = Integer.parseInt(args[0]);
+        int m = Integer.parseInt(args[1]);
+
+        // Print starting info
+        System.out.printf("%d threads\n", NUM_THREADS);
+        System.out.printf("%d operations per thread\n", m);
+        System.out.printf("Up to %d buffers of %d bytes held at once per thread\n\n", k, BUFFER_SIZE);
+
+        // Time allocating every buffer against pooling them over each depot
+        simulate("No pool", null, k, m);
+        simulate("Pool (lock free depot)", new ObjectPool<ByteBuffer>(() -> ByteBuffer.allocateDirect(BUFFER_SIZE),
+            ByteBuffer::clear, new LockFreeStack<ByteBuffer>(), MAGAZINE_SIZE), k, m);
+        simulate("Pool (blocking depot)", new ObjectPool<ByteBuffer>(() -> ByteBuffer.allocateDirect(BUFFER_SIZE),
+            ByteBuffer::clear, new BlockingStack<ByteBuffer>(), MAGAZINE_SIZE), k, m);
+    }
+
+    // Run NUM_THREADS threads sharing one tester, then print the execution time, the
+    // average number of bytes allocated per operation, and the pool's hits and misses
+    private static void simulate(String name, ObjectPool<ByteBuffer> pool, int k, int m) {
+
+        // Initialise the threads, all sharing one tester
+        PoolTester tester = new PoolTester(pool, k, m);
+        Thread[] threads = new Thread[NUM_THREADS];
+        for(int i=0; i<NUM_THREADS; i++)
+            threads[i] = new Thread(tester);
+
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for(Thread t : threads)
+            t.start();
+        for(Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+        long timeAfter = System.currentTimeMillis();
+        System.out.printf("%s execution time: %dms, %.1f bytes allocated per op\n", name, timeAfter-timeBefore,
+            (double)tester.allocatedBytes.get() / ((long)NUM_THREADS * m));
+        if(pool != null)
+            System.out.printf("%s hits: %d, misses: %d\n", name, pool.getHits(), pool.getMisses());
+    }
+}
+
+// This class tests an ObjectPool of direct buffers, or allocating a buffer every
+// time if there's no pool
+class PoolTester implements Runnable {
+
+    // Private variables
+    private ObjectPool<ByteBuffer> pool;
+    private int k;
+    private int m;
+    public AtomicLong allocatedBytes;
+
+    // Basic constructor with shared ObjectPool reference
+    public PoolTester(ObjectPool<ByteBuffer> pool, int k, int m) {
+        this.pool           = pool;
+        this.k              = k;
+        this.m              = m;
+        this.allocatedBytes = new AtomicLong(0);
+    }
+
+    // Threads constructed using this runnable implementation will hold a random
+    // number of buffers at once, write to each of them, then give them all back
+    @Override
+    public void run() {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        ByteBuffer[] held = new ByteBuffer[k];
+        long before = allocatedBytes();
+        for(int i=0; i<m; ) {
+            int n = 1 + rng.nextInt(k);
+            for(int j=0; j<n; j++, i++) {
+                held[j] = pool != null ? pool.acquire() : ByteBuffer.allocateDirect(PoolSimulation.BUFFER_SIZE);
+                held[j].putLong(0, i);
+            }
+            for(int j=0; j<n; j++) {
+                if(pool != null)
+                    pool.release(held[j]);
+                held[j] = null;
+            }
+        }
+        allocatedBytes.addAndGet(allocatedBytes() - before);
+    }
+
+    // Bytes allocated so far by the current thread
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,14 @@
+package concurrent.queue;
+import java.lang.management.ManagementFactory;
+
+// Per thread allocation counter shared by the queue simulations
+
+final class Allocations {
+
+    private Allocations() {}
+
+    // Bytes allocated so far by the current thread
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,51 @@
+package concurrent.queue;
+
+// Consumer of a RingBuffer, run on its own thread, which hands each event to an
+// EventHandler in sequence order. It waits on its barrier for the next sequence, then
+// handles every event available up to the highest one returned before moving its own
+// sequence on, so one wait and one release store are shared by the whole batch. Other
+// consumers can depend on its sequence, and the last in the graph gate the producers.
+
+public class BatchEventProcessor<E> implements Runnable {
+
+    // Internal data
+    private final RingBuffer<E> ringBuffer;
+    private final SequenceBarrier barrier;
+    private final EventHandler<? super E> handler;
+    private final Sequence sequence;
+
+    // Constructor with the ring to read, the barrier to wait on and the handler
+    public BatchEventProcessor(RingBuffer<E> ringBuffer, SequenceBarrier barrier, EventHandler<? super E> handler) {
+        this.ringBuffer = ringBuffer;
+        this.barrier    = barrier;
+        this.handler    = handler;
+        this.sequence   = new Sequence();
+    }
+
+    // Last sequence handled, for other consumers to depend on or to gate producers
+    public Sequence getSequence() { return sequence; }
+
+    // Stop once every event available to this processor has been handled. Halt a graph
+    // in dependency order, joining each processor before halting those after it.
+    public void halt() {
+        barrier.alert();
+    }
+
+    // Handle events until halted
+    @Override
+    public void run() {
+        long next = sequence.get() + 1;
+        while(true) {
+            long available = barrier.waitFor(next);
+            if(available < next) {
+                if(barrier.isAlerted())
+                    return;                                  // Halted and caught up
+                continue;
+            }
+            for(; next <= available; next++)
+                handler.onEvent(ringBuffer.get(next), next, next == available);
+            sequence.set(available);
+            ringBuffer.signalAllWhenBlocking();              // Wake consumers which depend on this one
+        }
+    }
+}
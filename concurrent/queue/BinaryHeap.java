@@ -0,0 +1,98 @@
+package concurrent.queue;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Array backed binary min-heap of items with long priorities, ordered as PriorityQueue
+// describes. NOT thread safe, the concurrent priority queues lock around it.
+
+final class BinaryHeap<T> {
+
+    // Constants
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Internal data
+    private final Comparator<? super T> comparator;
+    private long[] priorities;
+    private Object[] items;
+    private int size;
+
+    // Constructor with the comparator for equal priorities, or null for none
+    BinaryHeap(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.priorities = new long[INITIAL_CAPACITY];
+        this.items      = new Object[INITIAL_CAPACITY];
+    }
+
+    // Add an item, sifting it up from the bottom
+    void add(long priority, T item) {
+        if(size == items.length) {
+            priorities = Arrays.copyOf(priorities, size * 2);
+            items      = Arrays.copyOf(items, size * 2);
+        }
+        int i = size++;
+        while(i > 0) {
+            int parent = (i - 1) >>> 1;
+            if(compare(priority, item, parent) >= 0)
+                break;
+            move(parent, i);
+            i = parent;
+        }
+        priorities[i] = priority;
+        items[i]      = item;
+    }
+
+    // Remove the smallest item, sifting the last one down from the top, or return null if empty
+    @SuppressWarnings("unchecked")
+    T removeMin() {
+        if(size == 0)
+            return null;
+        T min       = (T)items[0];
+        int last    = --size;
+        long priority = priorities[last];
+        T item      = (T)items[last];
+        items[last] = null;
+        if(last == 0)
+            return min;
+
+        int i = 0;
+        while(true) {
+            int child = 2 * i + 1;
+            if(child >= last)
+                break;
+            if(child + 1 < last && compare(priorities[child + 1], (T)items[child + 1], child) < 0)
+                child++;
+            if(compare(priority, item, child) <= 0)
+                break;
+            move(child, i);
+            i = child;
+        }
+        priorities[i] = priority;
+        items[i]      = item;
+        return min;
+    }
+
+    // Smallest item, or null if empty
+    @SuppressWarnings("unchecked")
+    T peekMin() { return size == 0 ? null : (T)items[0]; }
+
+    // Priority of the smallest item, only meaningful if not empty
+    long minPriority() { return priorities[0]; }
+
+    // Number of items
+    int size() { return size; }
+
+    // Compare an item against the one at index i
+    @SuppressWarnings("unchecked")
+    private int compare(long priority, T item, int i) {
+        int c = Long.compare(priority, priorities[i]);
+        if(c != 0 || comparator == null)
+            return c;
+        return comparator.compare(item, (T)items[i]);
+    }
+
+    // Move the entry at index from to index to
+    private void move(int from, int to) {
+        priorities[to] = priorities[from];
+        items[to]      = items[from];
+    }
+}
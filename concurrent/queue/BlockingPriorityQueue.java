@@ -0,0 +1,49 @@
+package concurrent.queue;
+import java.util.Comparator;
+
+// Thread-safe priority queue implementation using blocking synchronization. Every
+// method synchronizes on the queue around a single binary heap, which is as simple as
+// it gets but lets only one thread in at a time. Unlike BlockingQueue, removeMin()
+// doesn't wait, returning null when the queue is empty.
+
+public class BlockingPriorityQueue<T> implements PriorityQueue<T> {
+
+    // Internal data
+    private final BinaryHeap<T> heap;
+
+    // Basic constructor, for items ordered by long priority alone
+    public BlockingPriorityQueue() {
+        this(null);
+    }
+
+    // Constructor with the comparator to order items of equal priority by
+    public BlockingPriorityQueue(Comparator<? super T> comparator) {
+        heap = new BinaryHeap<T>(comparator);
+    }
+
+    // Thread-safe add
+    @Override
+    public synchronized void add(long priority, T item) {
+        if(item == null)
+            throw new NullPointerException("BlockingPriorityQueue can't hold null items");
+        heap.add(priority, item);
+    }
+
+    // Thread-safe remove of the smallest item
+    @Override
+    public synchronized T removeMin() {
+        return heap.removeMin();
+    }
+
+    // Thread-safe peek at the smallest item
+    @Override
+    public synchronized T peekMin() {
+        return heap.peekMin();
+    }
+
+    // Thread-safe isEmpty
+    @Override
+    public synchronized boolean isEmpty() {
+        return heap.size() == 0;
+    }
+}
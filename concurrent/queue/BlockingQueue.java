@@ -1,4 +1,6 @@
 package concurrent.queue;
+import java.util.Collection;
+
 import concurrent.node.Node;
 
 // Thread-safe FIFO queue implementation using blocking synchronization
@@ -49,6 +51,12 @@ public class BlockingQueue<T> implements Queue<T> {
         return prevHead.get();
     }
 
+    // Thread-safe remove, returning null rather than waiting if the queue is empty
+    @Override
+    public synchronized T poll() {
+        return isEmpty() ? null : remove();
+    }
+
     // Thread-safe element
     @Override
     public synchronized T element() {
@@ -63,6 +71,60 @@ public class BlockingQueue<T> implements Queue<T> {
         return head.get();
     }
 
+    // Thread-safe batch add. The items are linked up outside the monitor, and the
+    // chain is appended in one go.
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        Node<T> first = null, last = null;
+        for(T item : items) {
+            Node<T> node = new Node<T>(item, null);
+            if(first == null)
+                first = node;
+            else
+                last.setNext(node);
+            last = node;
+        }
+        if(first != null)
+            append(first, last);
+    }
+
+    // Thread-safe batch remove, which doesn't wait if the queue is empty. Up to
+    // maxElements nodes are cut off the head in one go, and copied out after.
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        Node<T> node = detach(maxElements);
+        int n = 0;
+        for(; node != null; node = node.getNext(), n++)
+            items.add(node.get());
+        return n;
+    }
+
+    // Append a linked chain of nodes and wake any waiting threads
+    private synchronized void append(Node<T> first, Node<T> last) {
+        if(isEmpty())
+            head = first;
+        else
+            tail.setNext(first);
+        tail = last;
+        notifyAll();
+    }
+
+    // Unlink up to n nodes from the head, returning the first of them
+    private synchronized Node<T> detach(int n) {
+        if(isEmpty() || n <= 0)
+            return null;
+        Node<T> first = head, last = head;
+        for(int i=1; i<n && last.getNext() != null; i++)
+            last = last.getNext();
+        head = last.getNext();
+        last.setNext(null);
+
+        // If the queue is now empty, update the tail
+        if(head == null)
+            tail = null;
+        return first;
+    }
+
     // Helper method for readability of code
     @Override
     public boolean isEmpty() { return head == null || tail == null; }
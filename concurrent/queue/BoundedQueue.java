@@ -0,0 +1,11 @@
+package concurrent.queue;
+
+// Interface for fixed capacity queues. offer() and poll() fail fast, returning
+// false when the queue is full and null when it is empty, while add() throws an
+// IllegalStateException when the queue is full.
+
+public interface BoundedQueue<T> extends Queue<T> {
+    boolean offer(T item);
+    T poll();
+    int capacity();
+}
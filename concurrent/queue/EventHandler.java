@@ -0,0 +1,8 @@
+package concurrent.queue;
+
+// Callback for a BatchEventProcessor, handed each event of a RingBuffer in turn.
+// endOfBatch is set on the last event available before the processor next waits.
+
+public interface EventHandler<E> {
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
@@ -0,0 +1,302 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import concurrent.stack.BoundedLockFreeStack;
+
+// Thread-safe unbounded FIFO queue implementation using lock free synchronization,
+// built from a linked list of fixed size array chunks rather than a node per item.
+
+// Each chunk holds CHUNK_SIZE slots, and separate add and remove indices. An add
+// claims a slot with a getAndIncrement() on the tail chunk's add index and writes
+// its item there, and a remove claims the next slot below the add index with a CAS on
+// the head chunk's remove index, waiting for the item if its add hasn't written it yet.
+// Once a chunk fills up, threads move on to the next chunk, linking a new one if there
+// isn't one yet, just like the nodes of MichaelScottQueue. Chunks the head has moved
+// past are kept on a small BoundedLockFreeStack of spares, and reused for new chunks
+// once every slot in them has been taken, so a steady stream of items allocates
+// nothing at all.
+
+// A thread can still be holding a chunk after it has been reused. Each chunk carries
+// an id which changes whenever it is reused, and the remove index carries the id in
+// its top half, so a stale remove's CAS fails. A chunk is only reused once every slot
+// has been taken, so the add index can't be reset while any add still holds a slot in
+// it. An add which finds the id changed after claiming a slot therefore knows the
+// slot belongs to the reused chunk, fills it with SKIP, and retries. The batch
+// operations claim a whole range of slots with one getAndAdd() or CAS per chunk.
+// Null items can't be stored.
+
+public class LinkedArrayQueue<T> implements Queue<T> {
+
+    // VarHandles for the head, tail and chunk next fields
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(LinkedArrayQueue.class, "head", Chunk.class);
+            TAIL = lookup.findVarHandle(LinkedArrayQueue.class, "tail", Chunk.class);
+            NEXT = lookup.findVarHandle(Chunk.class, "next", Chunk.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Internal data
+    static final int CHUNK_SIZE = 1024;
+    private static final int MAX_SPARES = 64;
+    private static final Object TAKEN = new Object();       // Slot a remove has taken its item from
+    private static final Object SKIP  = new Object();       // Slot claimed by a stale add, holding no item
+    private volatile Chunk head;
+    private volatile Chunk tail;
+    private final BoundedLockFreeStack<Chunk> spares;       // Chunks the head moved past
+
+    // Basic constructor, head and tail both start at one empty chunk
+    public LinkedArrayQueue() {
+        head   = tail = new Chunk();
+        spares = new BoundedLockFreeStack<Chunk>(MAX_SPARES);
+    }
+
+    // Thread-safe add
+    @Override
+    public void add(T item) {
+        if(item == null)
+            throw new NullPointerException("LinkedArrayQueue can't hold null elements");
+
+        Chunk newChunk = null;
+        while(true) {
+            Chunk last = tail;
+            long id = last.id;
+            if((id & 1) != 0) {                              // Being reused, not linked yet
+                Thread.onSpinWait();
+                continue;
+            }
+
+            // Claim a slot and publish the item, unless the chunk was reused under us
+            int i = last.addIndex.getAndIncrement();
+            if(i < CHUNK_SIZE) {
+                if(last.id == id) {
+                    last.slots.setRelease(i, item);
+                    return;
+                }
+                last.slots.setRelease(i, SKIP);
+                continue;
+            }
+            newChunk = advanceTail(last, newChunk);
+        }
+    }
+
+    // Thread-safe batch add, claiming as many slots as fit in the tail chunk at once
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        for(T item : items) {
+            if(item == null)
+                throw new NullPointerException("LinkedArrayQueue can't hold null elements");
+        }
+
+        Iterator<? extends T> batch = items.iterator();
+        Chunk newChunk = null;
+        int remaining = items.size();
+        while(remaining > 0) {
+            Chunk last = tail;
+            long id = last.id;
+            if((id & 1) != 0) {                              // Being reused, not linked yet
+                Thread.onSpinWait();
+                continue;
+            }
+
+            // Claim a range of slots and publish the items, unless the chunk was reused under us
+            int n = Math.min(remaining, CHUNK_SIZE);
+            int i = last.addIndex.getAndAdd(n);
+            if(i < CHUNK_SIZE) {
+                int end = Math.min(i + n, CHUNK_SIZE);
+                boolean reused = last.id != id;
+                for(int j=i; j<end; j++)
+                    last.slots.setRelease(j, reused ? SKIP : batch.next());
+                if(!reused)
+                    remaining -= end - i;
+                continue;
+            }
+            newChunk = advanceTail(last, newChunk);
+        }
+    }
+
+    // Thread-safe remove
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove() {
+        while(true) {
+            Chunk first = head;
+            long r  = first.removeIndex.get();
+            int i   = (int)r;
+            if(first != head)
+                continue;
+
+            // Nothing left to claim in this chunk, move on to the next or report empty
+            if(i >= Math.min(first.addIndex.get(), CHUNK_SIZE)) {
+                if(!advanceHead(first, i))
+                    return null;                             // Queue was empty, return null
+                continue;
+            }
+
+            // Claim the slot and take its item
+            if(!first.removeIndex.compareAndSet(r, r + 1))
+                continue;
+            Object item = take(first, i);
+            if(item != SKIP)
+                return (T)item;
+        }
+    }
+
+    // Thread-safe batch remove, claiming every written slot of the head chunk at once
+    @Override
+    @SuppressWarnings("unchecked")
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        int n = 0;
+        while(n < maxElements) {
+            Chunk first = head;
+            long r  = first.removeIndex.get();
+            int i   = (int)r;
+            if(first != head)
+                continue;
+
+            // Nothing left to claim in this chunk, move on to the next or stop
+            int end = Math.min(first.addIndex.get(), CHUNK_SIZE);
+            if(i >= end) {
+                if(!advanceHead(first, i))
+                    break;                                   // Queue is empty
+                continue;
+            }
+
+            // Claim a range of slots and take their items
+            int k = Math.min(end - i, maxElements - n);
+            if(!first.removeIndex.compareAndSet(r, r + k))
+                continue;
+            for(int j=i; j<i+k; j++) {
+                Object item = take(first, j);
+                if(item != SKIP) {
+                    items.add((T)item);
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
+    // Thread-safe element - Returns the first item found that hasn't been taken yet
+    @Override
+    @SuppressWarnings("unchecked")
+    public T element() {
+        for(Chunk chunk = head; chunk != null; chunk = chunk.next) {
+            int end = Math.min(chunk.addIndex.get(), CHUNK_SIZE);
+            for(int i = (int)chunk.removeIndex.get(); i < end; i++) {
+                Object item = chunk.slots.get(i);
+                if(item != null && item != TAKEN && item != SKIP)
+                    return (T)item;
+            }
+        }
+        return null;                                         // null if empty queue
+    }
+
+    // Atomic at the point of reading each chunk's indices
+    @Override
+    public boolean isEmpty() {
+        for(Chunk chunk = head; chunk != null; chunk = chunk.next) {
+            if((int)chunk.removeIndex.get() < Math.min(chunk.addIndex.get(), CHUNK_SIZE))
+                return false;
+        }
+        return true;
+    }
+
+    // Called when the tail chunk is full. Move the tail on, linking a new chunk if there
+    // isn't one yet, and return the new chunk if it is still to be linked.
+    private Chunk advanceTail(Chunk last, Chunk newChunk) {
+        if(last != tail)
+            return newChunk;
+        Chunk next = last.next;
+        if(next != null) {
+            TAIL.compareAndSet(this, last, next);            // Tail is lagging, help swing it forward
+            return newChunk;
+        }
+        if(newChunk == null)
+            newChunk = newChunk();
+        if(!NEXT.compareAndSet(last, null, newChunk))
+            return newChunk;
+        if((newChunk.id & 1) != 0)
+            newChunk.id = newChunk.id + 1;                   // Linked, open a reused chunk to adds
+        TAIL.compareAndSet(this, last, newChunk);
+        return null;
+    }
+
+    // Called when nothing was left to claim in the head chunk at remove index i. Move
+    // the head on to the next chunk, returning false if there isn't one and the queue
+    // is empty.
+    private boolean advanceHead(Chunk first, int i) {
+        Chunk next = first.next;
+        if(next == null)
+            return first != head;
+        if(i < CHUNK_SIZE) {
+            // Either it filled up since, or a stale add linked the next chunk onto it while
+            // it was being reused. Claim whatever slots are left and skip them, so the
+            // chunk can be finished either way.
+            int a = first.addIndex.getAndAdd(CHUNK_SIZE);
+            for(int j=a; j<CHUNK_SIZE; j++)
+                first.slots.setRelease(j, SKIP);
+            return true;
+        }
+        if(first == tail)
+            TAIL.compareAndSet(this, first, next);           // The tail has to leave before the head
+        else if(HEAD.compareAndSet(this, first, next))
+            spares.tryPush(first);                           // No longer reachable from head or tail
+        return true;
+    }
+
+    // Wait for the add that claimed slot i to write it, then take it
+    private static Object take(Chunk chunk, int i) {
+        Object item;
+        while((item = chunk.slots.get(i)) == null)
+            Thread.onSpinWait();
+        chunk.slots.setRelease(i, TAKEN);
+        return item;
+    }
+
+    // Reuse a spare chunk if every slot of it has been taken, otherwise allocate one.
+    // A reused chunk gets an odd id, which keeps adds out of it until it is linked.
+    private Chunk newChunk() {
+        Chunk chunk = spares.pop();
+        if(chunk == null || !chunk.isDrained())
+            return new Chunk();
+        long id = chunk.id + 1;
+        chunk.id = id;
+        for(int i=0; i<CHUNK_SIZE; i++)
+            chunk.slots.setRelease(i, null);         // Ordered after the id change
+        chunk.addIndex.set(0);
+        chunk.removeIndex.set(id << 32);
+        chunk.next = null;
+        return chunk;
+    }
+
+    // Fixed size chunk of slots, with its own add and remove indices
+    private static final class Chunk {
+        final AtomicReferenceArray<Object> slots = new AtomicReferenceArray<Object>(CHUNK_SIZE);
+        final AtomicInteger addIndex             = new AtomicInteger(0);
+        final AtomicLong removeIndex             = new AtomicLong(0);   // Id in the top half
+        volatile long id;                                    // Even while linked, odd while being reused
+        volatile Chunk next;
+
+        // True once a remove has taken every slot, so no add can still write to it
+        boolean isDrained() {
+            for(int i=0; i<CHUNK_SIZE; i++) {
+                if(slots.get(i) != TAKEN)
+                    return false;
+            }
+            return true;
+        }
+    }
+}
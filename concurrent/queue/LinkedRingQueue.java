@@ -0,0 +1,388 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+import java.util.Iterator;
+
+// Thread-safe unbounded FIFO queue implementation built from a linked list of rings
+// whose indices only ever move by fetch-and-add, after Morrison and Afek's LCRQ and
+// Romanov and Koval's LPRQ. It is blocking rather than lock free: a remove which
+// reaches a slot while its add is writing the item waits for that add, so an add
+// descheduled mid-write holds up the remove at its position.
+
+// Within a ring, adds and removes take the next position with a getAndAdd() on the
+// tail or head, which always succeeds, so contended threads never retry on a shared
+// pointer. Without the double-width CAS of LCRQ, each slot instead carries a sequence
+// number saying whose turn it is, as in MpmcArrayQueue. A slot is free for the add at
+// position p when its sequence is p, and full for the remove at p when it is p + 1.
+// An add claims its slot with a CAS to p plus a WRITING bit, writes its item and then
+// releases p + 1, and a remove at p takes the item and moves the sequence on to the
+// next lap. A remove which gets to its slot before the add skips the slot for this lap
+// with a CAS straight to the next lap, so the late add fails its CAS and takes another
+// position, and a remove which finds the ring empty pulls the tail up to the head.
+
+// An add which finds its slot still holding the previous lap's item, with no remove
+// having claimed it, knows the ring is full, and closes it by setting the tail's
+// CLOSED bit. So does an add starved by removes skipping its slots too many times.
+// Adds to a closed ring fail, and the add which closes one links a new ring with its
+// item already in. Removes move the head on once the head ring is empty and has a
+// next. While the consumers keep up, a single ring is reused forever and nothing is
+// allocated. addAll() claims a range of positions with one getAndAdd(), and gives up
+// any it can't fill once the ring closes, the way a skipping remove would. drainTo() claims the run of
+// written positions at the head with one getAndAdd(). Null items can't be stored.
+
+public class LinkedRingQueue<T> implements Queue<T> {
+
+    // VarHandles for the head and tail rings, the ring next fields and the slot sequences
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(LinkedRingQueue.class, "head", Ring.class);
+            TAIL = lookup.findVarHandle(LinkedRingQueue.class, "tail", Ring.class);
+            NEXT = lookup.findVarHandle(Ring.class, "next", Ring.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Internal data
+    static final int RING_SIZE = 1024;
+    private static final long CLOSED  = 1L << 63;           // Tail bit, set once the ring takes no more adds
+    private static final long WRITING = 1L << 62;           // Sequence bit, set while an add writes its slot
+    private static final int MAX_ADD_TRIES = 16;            // Skipped slots before an add closes the ring
+    private static final int SPIN_TRIES = 64;               // Spins before skipping a slot or yielding
+    private volatile Ring head;
+    private volatile Ring tail;
+
+    // Basic constructor, head and tail both start at one empty ring
+    public LinkedRingQueue() {
+        head = tail = new Ring(null);
+    }
+
+    // Thread-safe add
+    @Override
+    public void add(T item) {
+        if(item == null)
+            throw new NullPointerException("LinkedRingQueue can't hold null elements");
+
+        while(true) {
+            Ring last = tail;
+            Ring next = last.next;
+            if(next != null) {
+                TAIL.compareAndSet(this, last, next);        // Tail is lagging, help swing it forward
+                continue;
+            }
+            if(last.enqueue(item))
+                return;
+
+            // The ring is closed, link a new one holding the item
+            Ring newRing = new Ring(item);
+            if(NEXT.compareAndSet(last, null, newRing)) {
+                TAIL.compareAndSet(this, last, newRing);
+                return;
+            }
+        }
+    }
+
+    // Thread-safe batch add, claiming as many positions as the batch needs at once
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        for(T item : items) {
+            if(item == null)
+                throw new NullPointerException("LinkedRingQueue can't hold null elements");
+        }
+
+        Iterator<? extends T> batch = items.iterator();
+        int remaining = items.size();
+        T item = remaining > 0 ? batch.next() : null;       // Next item still to be added
+        int tries = 0;
+        while(remaining > 0) {
+            Ring last = tail;
+            Ring next = last.next;
+            if(next != null) {
+                TAIL.compareAndSet(this, last, next);        // Tail is lagging, help swing it forward
+                continue;
+            }
+
+            // Claim a range of positions and write the items to them in order. An item whose
+            // slot was skipped by a remove goes in the next position instead, so the items
+            // still come out in order, until the ring turns out to be full or too many
+            // slots have been skipped.
+            int n = Math.min(remaining, RING_SIZE);
+            long t = last.tail.getAndAdd(n);
+            if((t & CLOSED) == 0) {
+                long p = t;
+                boolean closing = false;
+                for(; p < t + n && !closing; p++) {
+                    if(last.enqueueAt(p, item))
+                        item = --remaining > 0 ? batch.next() : null;
+                    else
+                        closing = p - last.head.get() >= RING_SIZE || ++tries >= MAX_ADD_TRIES;
+                }
+                if(!closing)
+                    continue;
+                for(; p < t + n; p++)
+                    last.skip(p);                            // Don't leave removes waiting on them
+                last.tail.getAndBitwiseOr(CLOSED);
+            }
+
+            // The ring is closed, link a new one holding the next item
+            Ring newRing = new Ring(item);
+            if(NEXT.compareAndSet(last, null, newRing)) {
+                TAIL.compareAndSet(this, last, newRing);
+                item  = --remaining > 0 ? batch.next() : null;
+                tries = 0;
+            }
+        }
+    }
+
+    // Thread-safe remove
+    @Override
+    @SuppressWarnings("unchecked")
+    public T remove() {
+        while(true) {
+            Ring first = head;
+            Object item = first.dequeue();
+            if(item != null)
+                return (T)item;
+            Ring next = first.next;
+            if(next == null)
+                return null;                                 // Queue was empty, return null
+
+            // The ring is closed, so once it's empty again nothing more can arrive in it
+            item = first.dequeue();
+            if(item != null)
+                return (T)item;
+            HEAD.compareAndSet(this, first, next);
+        }
+    }
+
+    // Thread-safe batch remove, claiming every position up to the tail of the head ring at once
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        int n = 0;
+        while(n < maxElements) {
+            Ring first = head;
+            int k = first.dequeueAll(items, maxElements - n);
+            if(k > 0) {
+                n += k;
+                continue;
+            }
+            Ring next = first.next;
+            if(next == null)
+                break;                                       // Queue is empty
+
+            // The ring is closed, so once it's empty again nothing more can arrive in it
+            k = first.dequeueAll(items, maxElements - n);
+            if(k > 0)
+                n += k;
+            else
+                HEAD.compareAndSet(this, first, next);
+        }
+        return n;
+    }
+
+    // Thread-safe element - Returns the first item found that hasn't been taken yet
+    @Override
+    @SuppressWarnings("unchecked")
+    public T element() {
+        for(Ring ring = head; ring != null; ring = ring.next) {
+            Object item = ring.peek();
+            if(item != null)
+                return (T)item;
+        }
+        return null;                                         // null if empty queue
+    }
+
+    // Atomic at the point of reading each ring's indices
+    @Override
+    public boolean isEmpty() {
+        for(Ring ring = head; ring != null; ring = ring.next) {
+            if(!ring.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    // Fixed size ring of slots, with its own head and tail positions
+    private static final class Ring {
+        final long[] sequences = new long[RING_SIZE];
+        final Object[] items   = new Object[RING_SIZE];
+        final PaddedCursor head = new PaddedCursor();
+        final PaddedCursor tail = new PaddedCursor();       // CLOSED bit on top of the position
+        volatile Ring next;
+
+        // Constructor, holding the first item if there is one
+        Ring(Object first) {
+            for(int i=0; i<RING_SIZE; i++)
+                sequences[i] = i;
+            if(first != null) {
+                items[0]     = first;
+                sequences[0] = 1;
+                tail.setRelease(1);
+            }
+        }
+
+        // Add an item at the next position, returning false if the ring is closed
+        boolean enqueue(Object item) {
+            for(int tries = 1; ; tries++) {
+                long t = tail.getAndAdd(1);
+                if((t & CLOSED) != 0)
+                    return false;
+                if(enqueueAt(t, item))
+                    return true;
+                if(t - head.get() >= RING_SIZE || tries >= MAX_ADD_TRIES) {
+                    tail.getAndBitwiseOr(CLOSED);
+                    return false;
+                }
+            }
+        }
+
+        // Write an item to the slot of claimed position t, returning false if a remove
+        // skipped the slot or the ring is full
+        boolean enqueueAt(long t, Object item) {
+            int index = (int)t & (RING_SIZE - 1);
+            for(int spins = 0; ; spins++) {
+                long s = (long)SEQUENCE.getAcquire(sequences, index);
+                if(s == t) {
+                    if(!SEQUENCE.compareAndSet(sequences, index, t, t | WRITING))
+                        continue;                            // A remove skipped it, look again
+                    items[index] = item;
+                    SEQUENCE.setRelease(sequences, index, t + 1);    // Publish to the remove at t
+                    return true;
+                }
+                if((s & ~WRITING) > t || head.get() <= t - RING_SIZE)
+                    return false;                            // Skipped by a remove, or the ring is full
+
+                // The previous lap's remove has claimed the slot and will free it shortly
+                backOff(spins);
+            }
+        }
+
+        // Give up claimed position t without writing it, moving the slot on to the next
+        // lap as a remove skipping it would, unless one already has or the ring is full
+        void skip(long t) {
+            SEQUENCE.compareAndSet(sequences, (int)t & (RING_SIZE - 1), t, t + RING_SIZE);
+        }
+
+        // Remove the item at the next position, returning null if the ring is empty
+        Object dequeue() {
+            if(isEmpty())
+                return null;                                 // Don't push the head past the tail
+            while(true) {
+                long h = head.getAndAdd(1);
+                Object item = dequeueAt(h);
+                if(item != null)
+                    return item;
+                if((tail.get() & ~CLOSED) <= h + 1) {
+                    fixState();
+                    return null;                             // Ring was empty
+                }
+            }
+        }
+
+        // Remove up to max items at once, claiming the run of positions from the head
+        // whose items are already written, and return how many were removed, 0 if the
+        // ring is empty. Positions whose adds are still writing aren't claimed, as the
+        // removes would soon skip them and send those adds round again.
+        @SuppressWarnings("unchecked")
+        <E> int dequeueAll(Collection<? super E> items, int max) {
+            while(true) {
+                long first = head.get();
+                long end   = tail.get() & ~CLOSED;
+                if(first >= end)
+                    return 0;                                // Don't push the head past the tail
+                int k = 1;
+                while(k < max && first + k < end
+                        && (long)SEQUENCE.getAcquire(sequences, (int)(first + k) & (RING_SIZE - 1)) == first + k + 1)
+                    k++;
+                long h = head.getAndAdd(k);
+                int n = 0;
+                for(long p = h; p < h + k; p++) {
+                    Object item = dequeueAt(p);
+                    if(item != null) {
+                        items.add((E)item);
+                        n++;
+                    }
+                }
+                if(n < k && (tail.get() & ~CLOSED) <= h + k)
+                    fixState();
+                if(n > 0)
+                    return n;
+            }
+        }
+
+        // Take the item at claimed position h, returning null if the slot was skipped
+        Object dequeueAt(long h) {
+            int index = (int)h & (RING_SIZE - 1);
+            for(int spins = 0; ; spins++) {
+                long s = (long)SEQUENCE.getAcquire(sequences, index);
+                if(s == h + 1) {
+                    Object item = items[index];
+                    items[index] = null;
+                    SEQUENCE.setRelease(sequences, index, h + RING_SIZE);   // Free for the next lap
+                    return item;
+                }
+                if(s == h) {
+                    // No add yet. Give one that has its position a moment before skipping the
+                    // slot, unless the ring is closed and the add would fail anyway.
+                    if(spins < SPIN_TRIES && tail.get() > h) {
+                        Thread.onSpinWait();
+                        continue;
+                    }
+                    if(SEQUENCE.compareAndSet(sequences, index, h, h + RING_SIZE))
+                        return null;
+                    continue;
+                }
+                if((s & ~WRITING) >= h + RING_SIZE)
+                    return null;                             // Its batch add gave the position up
+
+                // An add is writing the slot, or the previous lap's remove hasn't freed it yet
+                backOff(spins);
+            }
+        }
+
+        // First item found that hasn't been taken yet
+        Object peek() {
+            long end = tail.get() & ~CLOSED;
+            for(long p = head.get(); p < end; p++) {
+                int index = (int)p & (RING_SIZE - 1);
+                Object item = items[index];
+                if(item != null && (long)SEQUENCE.getAcquire(sequences, index) == p + 1)
+                    return item;
+            }
+            return null;
+        }
+
+        // Atomic at the point of reading
+        boolean isEmpty() {
+            return head.get() >= (tail.get() & ~CLOSED);
+        }
+
+        // Wait for another thread to finish with a slot, yielding once it has taken a
+        // while in case that thread isn't running
+        private static void backOff(int spins) {
+            if(spins < SPIN_TRIES)
+                Thread.onSpinWait();
+            else
+                Thread.yield();
+        }
+
+        // Pull the tail up to the head after removes have overshot it, so later adds
+        // don't land on slots which have already been skipped
+        private void fixState() {
+            while(true) {
+                long t = tail.get();
+                long h = head.get();
+                if(tail.get() != t)
+                    continue;
+                if((t & ~CLOSED) >= h || tail.compareAndSet(t, h | (t & CLOSED)))
+                    return;
+            }
+        }
+    }
+}
@@ -1,67 +1,148 @@
 package concurrent.queue;
-import java.util.concurrent.atomic.AtomicStampedReference;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReference;
 
 import concurrent.node.Node;
 
 // Thread-safe FIFO queue implementation using lock free synchronization
 
+// Every successful CAS installs a freshly allocated head and tail pair, and the GC
+// won't recycle a pair while a thread still holds it, so a pair can never come back
+// behind a thread's back. That rules out ABA without a stamp, so a plain reference
+// CAS is enough. The only pair that is reused is EMPTY, which the queue returns to
+// whenever it drains, so a thread which read EMPTY only ever CASes it to a pair
+// holding just its own nodes, and re-reads the pair if that fails. Treating a stale
+// EMPTY as a non-empty pair could otherwise succeed after the queue drained again.
+
 @SuppressWarnings("unchecked")
 public class LockFreeQueue<T> implements Queue<T> {
 
     // Internal data and constants
-    AtomicStampedReference<Node<T>[]> headAndTail;
+    AtomicReference<Node<T>[]> headAndTail;
     private static final int HEAD = 0;
     private static final int TAIL = 1;
-    private final Node<T>[] EMPTY = new Node[]{null, null};
+    private final Node<T>[] EMPTY = pair(null, null);
 
     // Basic constructor
     public LockFreeQueue() {
-        headAndTail = new AtomicStampedReference<Node<T>[]>(EMPTY, 0);
+        headAndTail = new AtomicReference<Node<T>[]>(EMPTY);
     }
 
     // Thread-safe add - Can still succeed if tail isn't linked yet
     @Override
     public void add(T item) {
-        int[] stampHolder = new int[1];
         Node<T>[] hnt;
         Node<T> newNode = new Node<T>(item, null);
         do {
-            hnt = headAndTail.get(stampHolder);
-            if(hnt[HEAD] == null && headAndTail.compareAndSet(hnt, new Node[]{newNode, newNode}, stampHolder[0], (stampHolder[0]+1) % Integer.MAX_VALUE))
-                return;                   // Queue was empty, new node added successfully
-
-        } while(!headAndTail.compareAndSet(hnt, new Node[]{hnt[HEAD], newNode}, stampHolder[0], (stampHolder[0]+1) % Integer.MAX_VALUE));
+            hnt = headAndTail.get();
+            if(hnt[HEAD] == null) {
+                if(headAndTail.compareAndSet(hnt, pair(newNode, newNode)))
+                    return;               // Queue was empty, new node added successfully
+                continue;                 // Never CAS a stale EMPTY as a non-empty pair
+            }
+        } while(!headAndTail.compareAndSet(hnt, pair(hnt[HEAD], newNode)));
         hnt[TAIL].setNext(newNode);       // Queue had one or more elements, new tail added successfully
     }
 
     // Thread-safe remove
     @Override
     public T remove() {
-        int[] stampHolder = new int[1];
         Node<T>[] hnt;
+        Node<T> next;
         do {
-            hnt = headAndTail.get(stampHolder);
+            hnt = headAndTail.get();
             if(hnt[HEAD] == null)
                 return null;              // Queue was empty, return null
 
-            if(hnt[HEAD] == hnt[TAIL] && headAndTail.compareAndSet(hnt, EMPTY, stampHolder[0], (stampHolder[0]+1) % Integer.MAX_VALUE))
+            if(hnt[HEAD] == hnt[TAIL] && headAndTail.compareAndSet(hnt, EMPTY))
                 return hnt[HEAD].get();   // Queue had one element, removed head successfully
 
-        // Force fail with stamp -1 if head.next() hasn't been linked yet
-        } while(!headAndTail.compareAndSet(hnt, new Node[]{hnt[HEAD].getNext(), hnt[TAIL]},
-        (hnt[HEAD].getNext() == null && hnt[HEAD] != hnt[TAIL] ? -1 : stampHolder[0]), (stampHolder[0]+1) % Integer.MAX_VALUE));
+        // Retry if head.next() hasn't been linked yet
+        } while((next = hnt[HEAD].getNext()) == null || !headAndTail.compareAndSet(hnt, pair(next, hnt[TAIL])));
         return hnt[HEAD].get();           // Queue had more than one element, removed head successfully
     }
 
+    // Thread-safe batch add - The items are linked up first, and the whole chain is
+    // installed as the new tail with a single CAS
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        Node<T> first = null, last = null;
+        for(T item : items) {
+            Node<T> node = new Node<T>(item, null);
+            if(first == null)
+                first = node;
+            else
+                last.setNext(node);
+            last = node;
+        }
+        if(first == null)
+            return;
+
+        Node<T>[] hnt;
+        do {
+            hnt = headAndTail.get();
+            if(hnt[HEAD] == null) {
+                if(headAndTail.compareAndSet(hnt, pair(first, last)))
+                    return;               // Queue was empty, chain added successfully
+                continue;                 // Never CAS a stale EMPTY as a non-empty pair
+            }
+        } while(!headAndTail.compareAndSet(hnt, pair(hnt[HEAD], last)));
+        hnt[TAIL].setNext(first);         // Queue had one or more elements, chain added successfully
+    }
+
+    // Thread-safe batch remove - Up to maxElements linked nodes are cut off the head
+    // with a single CAS
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        Node<T>[] hnt;
+        Node<T> first, rest;
+        int n;
+        do {
+            hnt = headAndTail.get();
+            if((first = hnt[HEAD]) == null || maxElements <= 0)
+                return 0;                 // Queue was empty, nothing removed
+
+            // Walk the linked nodes, taking the tail as well if we get that far
+            rest = first;
+            n = 0;
+            while(n < maxElements) {
+                if(rest == hnt[TAIL]) {
+                    rest = null;
+                    n++;
+                    break;
+                }
+                Node<T> next = rest.getNext();
+                if(next == null)
+                    break;                // Not linked yet, stop before it
+                rest = next;
+                n++;
+            }
+
+        // Retry if head.next() hasn't been linked yet
+        } while(n == 0 || !headAndTail.compareAndSet(hnt, rest == null ? EMPTY : pair(rest, hnt[TAIL])));
+
+        Node<T> node = first;
+        for(int i=0; i<n; i++, node = node.getNext())
+            items.add(node.get());
+        return n;
+    }
+
     // Thread-safe element - Atomic at the point of reading
     @Override
     public T element() {
-        return headAndTail.getReference()[HEAD].get(); // null if empty queue
+        Node<T> head = headAndTail.get()[HEAD];
+        return head == null ? null : head.get(); // null if empty queue
     }
 
     // Atomic at the point of reading
     @Override
     public boolean isEmpty() {
-        return headAndTail.getReference()[HEAD] == null;
+        return headAndTail.get()[HEAD] == null;
+    }
+
+    // New head and tail pair
+    @SuppressWarnings("rawtypes")
+    private static <T> Node<T>[] pair(Node<T> head, Node<T> tail) {
+        return new Node[]{head, tail};
     }
-}
\ No newline at end of file
+}
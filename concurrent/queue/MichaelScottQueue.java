@@ -0,0 +1,179 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
+// Thread-safe FIFO queue implementation using lock free synchronization, after
+// Michael and Scott's non-blocking queue.
+
+// The queue is a singly linked list with separate head and tail references, where
+// head always points at a dummy node and the first item lives in head.next. An add
+// first links its node after the last node with a CAS on that node's next, and only
+// then swings the tail to it. Anyone who finds the tail lagging behind a linked node
+// swings it forward themselves, so no thread ever waits on another thread's half
+// finished add, and adds and removes contend on different references. Fields are
+// updated through VarHandles, so nothing but the node itself is allocated.
+
+public class MichaelScottQueue<T> implements Queue<T> {
+
+    // VarHandles for the head, tail and next fields
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(MichaelScottQueue.class, "head", Node.class);
+            TAIL = lookup.findVarHandle(MichaelScottQueue.class, "tail", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Internal data
+    private volatile Node<T> head;
+    private volatile Node<T> tail;
+
+    // Basic constructor, head and tail both start at the dummy node
+    public MichaelScottQueue() {
+        head = tail = new Node<T>(null);
+    }
+
+    // Thread-safe add
+    @Override
+    public void add(T item) {
+        Node<T> newNode = new Node<T>(item);
+        while(true) {
+            Node<T> last = tail;
+            Node<T> next = last.next;
+            if(next != null) {
+                TAIL.compareAndSet(this, last, next);        // Tail is lagging, help swing it forward
+            } else if(NEXT.compareAndSet(last, null, newNode)) {
+                TAIL.compareAndSet(this, last, newNode);     // Linked, try to swing the tail to it
+                return;
+            }
+        }
+    }
+
+    // Thread-safe remove
+    @Override
+    public T remove() {
+        while(true) {
+            Node<T> first = head;
+            Node<T> last  = tail;
+            Node<T> next  = first.next;
+            if(next == null)
+                return null;                                 // Queue was empty, return null
+            if(first == last) {
+                TAIL.compareAndSet(this, last, next);        // Tail is lagging, help swing it forward
+            } else {
+                T item = next.item;
+                if(HEAD.compareAndSet(this, first, next)) {
+                    next.item = null;                        // next is the new dummy, drop its item
+                    return item;
+                }
+            }
+        }
+    }
+
+    // Thread-safe batch add - The items are linked up first, and the whole chain is
+    // linked after the last node with a single CAS. The tail is swung straight to the
+    // end of the chain, or walked along it by anyone who finds it lagging.
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        Node<T> first = null, end = null;
+        for(T item : items) {
+            Node<T> node = new Node<T>(item);
+            if(first == null)
+                first = node;
+            else
+                end.next = node;
+            end = node;
+        }
+        if(first == null)
+            return;
+
+        while(true) {
+            Node<T> last = tail;
+            Node<T> next = last.next;
+            if(next != null) {
+                TAIL.compareAndSet(this, last, next);        // Tail is lagging, help swing it forward
+            } else if(NEXT.compareAndSet(last, null, first)) {
+                TAIL.compareAndSet(this, last, end);         // Linked, try to swing the tail to the end
+                return;
+            }
+        }
+    }
+
+    // Thread-safe batch remove - Up to maxElements nodes are cut off the head with a
+    // single CAS. The last of them becomes the new dummy.
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        while(true) {
+            Node<T> first = head;
+            Node<T> last  = tail;
+
+            // Find the new head, making sure it doesn't get ahead of the tail
+            Node<T> node = first;
+            int n = 0;
+            boolean lagging = false;
+            while(n < maxElements) {
+                Node<T> next = node.next;
+                if(next == null)
+                    break;
+                if(node == last) {
+                    TAIL.compareAndSet(this, last, next);    // Tail is lagging, help swing it forward
+                    lagging = true;
+                    break;
+                }
+                node = next;
+                n++;
+            }
+            if(lagging)
+                continue;
+            if(n == 0)
+                return 0;                                    // Queue was empty, nothing removed
+
+            // Only the thread that makes a node the dummy clears its item, so after
+            // the CAS every item up to the new dummy is ours to read
+            if(HEAD.compareAndSet(this, first, node)) {
+                for(Node<T> taken = first.next; taken != node; taken = taken.next)
+                    items.add(taken.item);
+                items.add(node.item);
+                node.item = null;                            // node is the new dummy, drop its item
+                return n;
+            }
+        }
+    }
+
+    // Thread-safe element - Atomic at the point of reading the head
+    @Override
+    public T element() {
+        while(true) {
+            Node<T> first = head;
+            Node<T> next  = first.next;
+            if(next == null)
+                return null;                                 // null if empty queue
+            T item = next.item;
+            if(first == head)                                // Not removed while reading
+                return item;
+        }
+    }
+
+    // Atomic at the point of reading
+    @Override
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    // Queue node, with next only ever set once from null
+    private static final class Node<T> {
+        T item;
+        volatile Node<T> next;
+
+        Node(T item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// Bounded thread-safe FIFO queue implementation using lock free synchronization,
+// after Vyukov's bounded multi producer multi consumer queue.
+
+// Items live in a ring of power of two size, and every slot has a sequence number
+// saying whose turn it is. A slot is free for the producer at position pos when its
+// sequence is pos, and full for the consumer at pos when it is pos + 1. Producers
+// and consumers each claim a position with a CAS on their own cursor, then fill or
+// empty the slot and publish it by moving its sequence on, so the two sides never
+// touch the same cursor and no operation allocates. offer() and poll() fail fast
+// when the ring is full or empty, and add() throws when it is full. The cursors
+// are padded onto their own cache lines, so producers and consumers don't share one.
+
+public class MpmcArrayQueue<T> implements BoundedQueue<T> {
+
+    // VarHandle for the slot sequence numbers
+    private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Internal data
+    private final int mask;
+    private final Object[] buffer;
+    private final long[] sequences;
+    private final PaddedCursor enqueuePos;
+    private final PaddedCursor dequeuePos;
+
+    // Constructor with the minimum capacity, rounded up to a power of two
+    public MpmcArrayQueue(int capacity) {
+        if(capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        int size   = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask       = size - 1;
+        buffer     = new Object[size];
+        sequences  = new long[size];
+        for(int i=0; i<size; i++)
+            sequences[i] = i;
+        enqueuePos = new PaddedCursor();
+        dequeuePos = new PaddedCursor();
+    }
+
+    // Thread-safe add, throwing if the queue is full
+    @Override
+    public void add(T item) {
+        if(!offer(item))
+            throw new IllegalStateException("MpmcArrayQueue is full, capacity " + buffer.length);
+    }
+
+    // Thread-safe add, returning false if the queue is full
+    @Override
+    public boolean offer(T item) {
+        long pos = enqueuePos.get();
+        while(true) {
+            int index = (int)pos & mask;
+            long diff = (long)SEQUENCE.getAcquire(sequences, index) - pos;
+            if(diff == 0) {
+                if(enqueuePos.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = item;
+                    SEQUENCE.setRelease(sequences, index, pos + 1);   // Publish to the consumer at pos
+                    return true;
+                }
+                pos = enqueuePos.get();
+            } else if(diff < 0) {
+                return false;                                         // Queue was full
+            } else {
+                pos = enqueuePos.get();                               // Another producer got here first
+            }
+        }
+    }
+
+    // Thread-safe remove
+    @Override
+    public T remove() {
+        return poll();
+    }
+
+    // Thread-safe remove, returning null if the queue is empty
+    @SuppressWarnings("unchecked")
+    @Override
+    public T poll() {
+        long pos = dequeuePos.get();
+        while(true) {
+            int index = (int)pos & mask;
+            long diff = (long)SEQUENCE.getAcquire(sequences, index) - (pos + 1);
+            if(diff == 0) {
+                if(dequeuePos.compareAndSet(pos, pos + 1)) {
+                    T item = (T)buffer[index];
+                    buffer[index] = null;
+                    SEQUENCE.setRelease(sequences, index, pos + mask + 1); // Free for the next lap
+                    return item;
+                }
+                pos = dequeuePos.get();
+            } else if(diff < 0) {
+                return null;                                          // Queue was empty
+            } else {
+                pos = dequeuePos.get();                               // Another consumer got here first
+            }
+        }
+    }
+
+    // Thread-safe element - Atomic at the point of reading the slot
+    @SuppressWarnings("unchecked")
+    @Override
+    public T element() {
+        while(true) {
+            long pos  = dequeuePos.get();
+            int index = (int)pos & mask;
+            long diff = (long)SEQUENCE.getAcquire(sequences, index) - (pos + 1);
+            if(diff < 0)
+                return null;                                          // null if empty queue
+            if(diff == 0) {
+                T item = (T)buffer[index];
+                if(dequeuePos.get() == pos)                           // Not removed while reading
+                    return item;
+            }
+        }
+    }
+
+    // Atomic at the point of reading
+    @Override
+    public boolean isEmpty() {
+        long pos = dequeuePos.get();
+        return (long)SEQUENCE.getAcquire(sequences, (int)pos & mask) - (pos + 1) < 0;
+    }
+
+    // Maximum number of items
+    @Override
+    public int capacity() { return buffer.length; }
+}
@@ -0,0 +1,141 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
+// Bounded FIFO queue for any number of producer threads and one consumer thread,
+// using lock free synchronization.
+
+// Items live in a ring of power of two size. Producers claim a position with a CAS
+// on the producer index, and publish their item into the slot with a release store.
+// The consumer owns its index, so it never has to CAS; it takes the item from the
+// slot, clears it, and publishes its index with a release store. A null slot means
+// the item hasn't been published yet, so null items can't be stored. Producers
+// share a cached view of the consumer index, so they only read the consumer's cache
+// line when the ring looks full. The cache is written with a release store after the
+// consumer index it came from was read with an acquire load, and read back with an
+// acquire load, so a producer that trusts a cached limit also sees the consumer's
+// clearing of every slot below it. remove(), poll(), drainTo() and element() must
+// only be called from the consumer thread.
+
+public class MpscArrayQueue<T> implements BoundedQueue<T> {
+
+    // VarHandle for the slots
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    // Internal data
+    private final int mask;
+    private final Object[] buffer;
+    private final PaddedCursor producerIndex;               // Caches the consumer index + capacity
+    private final PaddedCursor consumerIndex;
+
+    // Constructor with the minimum capacity, rounded up to a power of two
+    public MpscArrayQueue(int capacity) {
+        if(capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        int size      = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask          = size - 1;
+        buffer        = new Object[size];
+        producerIndex = new PaddedCursor();
+        consumerIndex = new PaddedCursor();
+        producerIndex.setCacheRelease(size);
+    }
+
+    // Thread-safe add, throwing if the queue is full
+    @Override
+    public void add(T item) {
+        if(!offer(item))
+            throw new IllegalStateException("MpscArrayQueue is full, capacity " + buffer.length);
+    }
+
+    // Thread-safe add, returning false if the queue is full
+    @Override
+    public boolean offer(T item) {
+        if(item == null)
+            throw new NullPointerException("MpscArrayQueue can't hold null items");
+
+        // Claim a position, only looking at the consumer index when the cached limit says we're full
+        long p, limit = producerIndex.getCacheAcquire();
+        do {
+            p = producerIndex.get();
+            if(p >= limit) {
+                limit = consumerIndex.getAcquire() + buffer.length;
+                if(p >= limit)
+                    return false;                                     // Queue was full
+                producerIndex.setCacheRelease(limit);
+            }
+        } while(!producerIndex.compareAndSet(p, p + 1));
+
+        SLOT.setRelease(buffer, (int)p & mask, item);                 // Publish the item
+        return true;
+    }
+
+    // Consumer only remove
+    @Override
+    public T remove() {
+        return poll();
+    }
+
+    // Consumer only remove, returning null if the queue is empty
+    @Override
+    public T poll() {
+        long c    = consumerIndex.getPlain();
+        int index = (int)c & mask;
+        T item    = waitForItem(c, index);
+        if(item == null)
+            return null;                                              // Queue was empty
+        SLOT.set(buffer, index, null);
+        consumerIndex.setRelease(c + 1);                              // Free the slot
+        return item;
+    }
+
+    // Consumer only batch remove, freeing all the slots with a single release store
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        long c = consumerIndex.getPlain();
+        int n = 0;
+        while(n < maxElements) {
+            int index = (int)(c + n) & mask;
+            T item    = waitForItem(c + n, index);
+            if(item == null)
+                break;                                                // Queue is empty
+            items.add(item);
+            SLOT.set(buffer, index, null);
+            n++;
+        }
+        if(n > 0)
+            consumerIndex.setRelease(c + n);                          // Free the slots
+        return n;
+    }
+
+    // Consumer only element
+    @Override
+    public T element() {
+        long c = consumerIndex.getPlain();
+        return waitForItem(c, (int)c & mask);                         // null if empty queue
+    }
+
+    // Atomic at the point of reading
+    @Override
+    public boolean isEmpty() {
+        return consumerIndex.get() >= producerIndex.get();
+    }
+
+    // Maximum number of items
+    @Override
+    public int capacity() { return buffer.length; }
+
+    // Return the item at consumer position c, or null if the queue is empty. If a
+    // producer has claimed c but not yet published it, wait for it to.
+    @SuppressWarnings("unchecked")
+    private T waitForItem(long c, int index) {
+        Object item = SLOT.getAcquire(buffer, index);
+        if(item == null) {
+            if(c >= producerIndex.get())
+                return null;
+            while((item = SLOT.getAcquire(buffer, index)) == null)
+                Thread.onSpinWait();
+        }
+        return (T)item;
+    }
+}
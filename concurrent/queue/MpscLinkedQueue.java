@@ -0,0 +1,138 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
+// Unbounded FIFO queue for any number of producer threads and one consumer thread,
+// using lock free synchronization, after Vyukov's intrusive MPSC node queue.
+
+// Producers never CAS. An add swaps its node into the tail with a single
+// getAndSet(), then links the previous tail to it with a release store. The consumer
+// owns the head, which always points at a dummy node, and takes items by moving the
+// head along the links with plain writes. Between the swap and the link the new node
+// is briefly unreachable from the head, so if the consumer finds no link but the tail
+// has moved on it waits for the producer to finish linking. remove(), drainTo() and
+// element() must only be called from the consumer thread.
+
+public class MpscLinkedQueue<T> implements Queue<T> {
+
+    // VarHandles for the tail and next fields
+    private static final VarHandle TAIL;
+    private static final VarHandle NEXT;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(MpscLinkedQueue.class, "tail", Node.class);
+            NEXT = lookup.findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // Internal data
+    private Node<T> head;                                    // Only touched by the consumer
+    private volatile Node<T> tail;
+
+    // Basic constructor, head and tail both start at the dummy node
+    public MpscLinkedQueue() {
+        head = tail = new Node<T>(null);
+    }
+
+    // Thread-safe add
+    @Override
+    public void add(T item) {
+        Node<T> newNode = new Node<T>(item);
+        @SuppressWarnings("unchecked")
+        Node<T> prev = (Node<T>)TAIL.getAndSet(this, newNode);
+        NEXT.setRelease(prev, newNode);                      // Link the previous tail to it
+    }
+
+    // Consumer only remove
+    @Override
+    public T remove() {
+        Node<T> next = waitForNext(head);
+        if(next == null)
+            return null;                                     // Queue was empty, return null
+        T item    = next.item;
+        next.item = null;                                    // next is the new dummy, drop its item
+        head      = next;
+        return item;
+    }
+
+    // Thread-safe batch add - The items are linked up first, and the whole chain is
+    // swapped into the tail with a single getAndSet()
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        Node<T> first = null, end = null;
+        for(T item : items) {
+            Node<T> node = new Node<T>(item);
+            if(first == null)
+                first = node;
+            else
+                NEXT.set(end, node);                         // Published by the release store below
+            end = node;
+        }
+        if(first == null)
+            return;
+        @SuppressWarnings("unchecked")
+        Node<T> prev = (Node<T>)TAIL.getAndSet(this, end);
+        NEXT.setRelease(prev, first);                        // Link the previous tail to the chain
+    }
+
+    // Consumer only batch remove, moving the head once for the whole batch
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        Node<T> node = head;
+        int n = 0;
+        while(n < maxElements) {
+            Node<T> next = waitForNext(node);
+            if(next == null)
+                break;                                       // Queue is empty
+            items.add(next.item);
+            node = next;
+            n++;
+        }
+        if(n > 0) {
+            node.item = null;                                // node is the new dummy, drop its item
+            head = node;
+        }
+        return n;
+    }
+
+    // Consumer only element
+    @Override
+    public T element() {
+        Node<T> next = waitForNext(head);
+        return next == null ? null : next.item;              // null if empty queue
+    }
+
+    // Atomic at the point of reading the tail
+    @Override
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    // Return the node after first, or null if first is the tail. If a producer has
+    // swapped in a new tail but not yet linked it, wait for it to.
+    @SuppressWarnings("unchecked")
+    private Node<T> waitForNext(Node<T> first) {
+        Node<T> next  = (Node<T>)NEXT.getAcquire(first);
+        if(next == null) {
+            if(first == tail)
+                return null;
+            while((next = (Node<T>)NEXT.getAcquire(first)) == null)
+                Thread.onSpinWait();
+        }
+        return next;
+    }
+
+    // Queue node, with next only ever set once from null
+    private static final class Node<T> {
+        T item;
+        volatile Node<T> next;
+
+        Node(T item) {
+            this.item = item;
+        }
+    }
+}
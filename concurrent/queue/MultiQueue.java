@@ -0,0 +1,158 @@
+package concurrent.queue;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe relaxed priority queue implementation using blocking synchronization,
+// after Rihani, Sanders and Dementiev's MultiQueues.
+
+// Items are spread over c * p sequential binary heaps, or lanes, each guarded by its own
+// lock. An add locks a random lane and adds to it, and removeMin() picks two random lanes
+// and removes from the one whose smallest item is smaller. Locks are only ever taken with
+// tryLock(), and a thread which finds a lane busy just picks again, so nobody waits on a
+// lane while others are free. Each lane caches its smallest item, written under its lock,
+// so the two lanes are compared without locking either. The price is order: removeMin()
+// returns a small item rather than the smallest, and the expected rank of what it returns
+// grows with the number of lanes, so c trades throughput against rank error. Once both
+// picks are empty, a remove checks every lane before deciding the queue is empty.
+
+public class MultiQueue<T> implements PriorityQueue<T> {
+
+    // Constants
+    private static final int DEFAULT_C = 2;                 // Lanes per thread
+
+    // Internal data
+    private final Comparator<? super T> comparator;
+    private final Lane<T>[] lanes;
+
+    // Basic constructor, for items ordered by long priority alone
+    public MultiQueue() {
+        this(null);
+    }
+
+    // Constructor with the comparator to order items of equal priority by, with two
+    // lanes per available processor
+    public MultiQueue(Comparator<? super T> comparator) {
+        this(DEFAULT_C, Runtime.getRuntime().availableProcessors(), comparator);
+    }
+
+    // Constructor with c lanes for each of p threads, and the comparator to order
+    // items of equal priority by
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public MultiQueue(int c, int p, Comparator<? super T> comparator) {
+        if(c < 1 || p < 1)
+            throw new IllegalArgumentException("c and p must be positive: " + c + ", " + p);
+        this.comparator = comparator;
+        this.lanes      = new Lane[c * p];
+        for(int i=0; i<lanes.length; i++)
+            lanes[i] = new Lane<T>(comparator);
+    }
+
+    // Thread-safe add
+    @Override
+    public void add(long priority, T item) {
+        if(item == null)
+            throw new NullPointerException("MultiQueue can't hold null items");
+
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        while(true) {
+            Lane<T> lane = lanes[rng.nextInt(lanes.length)];
+            if(!lane.lock.tryLock())
+                continue;                                    // Busy, pick another lane
+            try {
+                lane.heap.add(priority, item);
+                lane.updateTop();
+                return;
+            } finally {
+                lane.lock.unlock();
+            }
+        }
+    }
+
+    // Thread-safe remove of a small item - The smaller of two random lanes' smallest items
+    @Override
+    public T removeMin() {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        while(true) {
+            int i = rng.nextInt(lanes.length);
+            int j = lanes.length == 1 ? i : rng.nextInt(lanes.length - 1);
+            if(j >= i && lanes.length > 1)
+                j++;                                         // Two different lanes
+            Lane<T> lane = better(lanes[i], lanes[j]);
+            if(lane == null && (lane = firstNonEmpty(rng.nextInt(lanes.length))) == null)
+                return null;                                 // Queue was empty
+
+            if(!lane.lock.tryLock())
+                continue;                                    // Busy, pick again
+            try {
+                T item = lane.heap.removeMin();
+                if(item != null) {
+                    lane.updateTop();
+                    return item;
+                }
+            } finally {
+                lane.lock.unlock();
+            }
+        }
+    }
+
+    // Thread-safe peek at the smallest item of any lane - Atomic at the point of reading
+    // each lane's cached item
+    @Override
+    public T peekMin() {
+        Lane<T> best = null;
+        for(Lane<T> lane : lanes)
+            best = best == null ? (lane.top == null ? null : lane) : better(best, lane);
+        return best == null ? null : best.top;               // null if empty queue
+    }
+
+    // Atomic at the point of reading each lane's cached item
+    @Override
+    public boolean isEmpty() {
+        return firstNonEmpty(0) == null;
+    }
+
+    // Lane with the smaller cached item, or null if both are empty
+    private Lane<T> better(Lane<T> a, Lane<T> b) {
+        T aTop = a.top, bTop = b.top;
+        if(aTop == null)
+            return bTop == null ? null : b;
+        if(bTop == null)
+            return a;
+        int c = Long.compare(a.topPriority, b.topPriority);
+        if(c == 0 && comparator != null)
+            c = comparator.compare(aTop, bTop);
+        return c <= 0 ? a : b;
+    }
+
+    // First lane from start on, wrapping around, with an item, or null if none have one
+    private Lane<T> firstNonEmpty(int start) {
+        for(int k=0; k<lanes.length; k++) {
+            Lane<T> lane = lanes[(start + k) % lanes.length];
+            if(lane.top != null)
+                return lane;
+        }
+        return null;
+    }
+
+    // Sequential heap with its lock and a cached copy of its smallest item, which is
+    // written under the lock and read without it
+    private static final class Lane<T> {
+        final ReentrantLock lock = new ReentrantLock();
+        final BinaryHeap<T> heap;
+        volatile long topPriority;
+        volatile T top;                                     // null if empty
+
+        Lane(Comparator<? super T> comparator) {
+            heap = new BinaryHeap<T>(comparator);
+        }
+
+        // Refresh the cache after the heap changes, while holding the lock
+        void updateTop() {
+            T min = heap.peekMin();
+            if(min != null)
+                topPriority = heap.minPriority();
+            top = min;
+        }
+    }
+}
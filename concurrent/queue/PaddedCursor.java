@@ -0,0 +1,58 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+// A queue cursor padded onto its own cache line, so the producer and consumer
+// cursors of a queue never share one. Alongside the cursor sits a cache of the
+// opposite cursor, as last seen by the side that owns this one, so the owner can
+// usually check for room or items without reading the other side's cache line.
+
+// The padding is laid out through the class hierarchy, as the JVM keeps
+// superclass fields ahead of subclass fields.
+
+final class PaddedCursor extends PaddedCursorFields {
+
+    @SuppressWarnings("unused")
+    private long p11, p12, p13, p14, p15, p16, p17;
+
+    // Cursor accessors, from the strongest ordering down
+    long get() { return value; }
+    long getAcquire() { return (long)VALUE.getAcquire(this); }
+    long getPlain() { return (long)VALUE.get(this); }
+    void setRelease(long newValue) { VALUE.setRelease(this, newValue); }
+    boolean compareAndSet(long expected, long newValue) { return VALUE.compareAndSet(this, expected, newValue); }
+    long getAndAdd(long delta) { return (long)VALUE.getAndAdd(this, delta); }
+    long getAndBitwiseOr(long bits) { return (long)VALUE.getAndBitwiseOr(this, bits); }
+
+    // Cache accessors. Plain for a cursor with a single owner, opaque or release/acquire
+    // where it's shared.
+    long getCache() { return cache; }
+    void setCache(long newCache) { cache = newCache; }
+    long getCacheOpaque() { return (long)CACHE.getOpaque(this); }
+    void setCacheOpaque(long newCache) { CACHE.setOpaque(this, newCache); }
+    long getCacheAcquire() { return (long)CACHE.getAcquire(this); }
+    void setCacheRelease(long newCache) { CACHE.setRelease(this, newCache); }
+}
+
+// Cursor and cache fields, after the left padding
+abstract class PaddedCursorFields extends PaddedCursorLeftPad {
+    static final VarHandle VALUE;
+    static final VarHandle CACHE;
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            VALUE = lookup.findVarHandle(PaddedCursorFields.class, "value", long.class);
+            CACHE = lookup.findVarHandle(PaddedCursorFields.class, "cache", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    volatile long value;
+    long cache;
+}
+
+// Padding ahead of the cursor
+abstract class PaddedCursorLeftPad {
+    @SuppressWarnings("unused")
+    private long p01, p02, p03, p04, p05, p06, p07;
+}
@@ -0,0 +1,29 @@
+package concurrent.queue;
+
+// Interface for concurrent priority queues, where remove() takes the smallest item.
+// Items are ordered by their long priority, then by the queue's comparator if it has
+// one. add(T) uses priority 0, so a queue built with a comparator orders by it alone.
+
+public interface PriorityQueue<T> extends Queue<T> {
+    void add(long priority, T item);
+    T removeMin();
+    T peekMin();
+
+    // Add an item ordered by the comparator alone
+    @Override
+    default void add(T item) {
+        add(0, item);
+    }
+
+    // Remove the smallest item, returning null if the queue is empty
+    @Override
+    default T remove() {
+        return removeMin();
+    }
+
+    // Get, but do not remove, the smallest item
+    @Override
+    default T element() {
+        return peekMin();
+    }
+}
@@ -0,0 +1,270 @@
+package concurrent.queue;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Driver class for testing my priority queue implementations
+
+public class PriorityQueueSimulation {
+
+    // Constants
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEADLOCK_TIMEOUT = 5000;
+    private static final int PREFILL = 10000;
+    static final long PRIORITY_RANGE = 1L << 20;
+    private static final int MULTI_QUEUE_C = 2;
+    private static final int[] RANK_C = { 1, 2, 4, 8 };    // Lanes per thread to measure rank error for
+    private static final int RANK_OPS = 250000;             // Most operations per thread logged for rank error
+    private static int numThreads;
+
+    public static void main(String[] args) {
+
+        // Input params
+        int k = Integer.parseInt(args[0]);
+        int m = Integer.parseInt(args[1]);
+        numThreads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
+
+        // Print starting info
+        System.out.printf("%d threads\n", numThreads);
+        System.out.printf("%d operations per thread\n", m);
+        System.out.printf("%d items added up front\n", PREFILL);
+        System.out.printf("%d%% chance of addition\n", (100-k));
+        System.out.printf("%d%% chance of peekMin\n", (k/2));
+        System.out.printf("%d%% chance of removeMin\n\n", (k - k/2));
+
+        // Time each priority queue, by long priority and then by comparator
+        simulate("Blocking Priority Queue", new BlockingPriorityQueue<Long>(), false, true, k, m);
+        simulate("Skip List Priority Queue", new SkipListPriorityQueue<Long>(), false, true, k, m);
+        simulate("Multi Queue", new MultiQueue<Long>(MULTI_QUEUE_C, numThreads, null), false, false, k, m);
+        simulate("Blocking Priority Queue (comparator)", new BlockingPriorityQueue<Long>(Long::compare), true, true, k, m);
+        simulate("Skip List Priority Queue (comparator)", new SkipListPriorityQueue<Long>(Long::compare), true, true, k, m);
+        simulate("Multi Queue (comparator)", new MultiQueue<Long>(MULTI_QUEUE_C, numThreads, Long::compare), true, false, k, m);
+
+        // Measure how far from the smallest item removeMin() strays. Ticks are taken outside
+        // the queue, so even a strict queue can show some error, and the blocking queue is run
+        // first as the control that gives that noise floor
+        int logged = Math.min(m, RANK_OPS);
+        System.out.printf("Rank error, %d operations per thread\n\n", logged);
+        rankError("Blocking Priority Queue (control)", new BlockingPriorityQueue<Long>(), k, logged);
+        rankError("Skip List Priority Queue", new SkipListPriorityQueue<Long>(), k, logged);
+        for(int c : RANK_C)
+            rankError("Multi Queue (c = " + c + ")", new MultiQueue<Long>(c, numThreads, null), k, logged);
+    }
+
+    // Run numThreads threads sharing one tester, then drain the queue, checking that
+    // nothing was lost and, if the queue is strict, that it comes out in order, and
+    // print the results
+    private static void simulate(String name, PriorityQueue<Long> queue, boolean byComparator, boolean strict, int k, int m) {
+
+        // Prefill, so removals have something to take from the start
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        for(int i=0; i<PREFILL; i++)
+            PriorityQueueTester.add(queue, rng.nextLong(PRIORITY_RANGE), byComparator);
+
+        // Initialise the threads, all sharing one tester
+        boolean deadlocked = false;
+        SimResults results = new SimResults(name);
+        results.successfulAdditions.set(PREFILL);
+        PriorityQueueTester tester = new PriorityQueueTester(queue, byComparator, k, m, results);
+        Thread[] threads = new Thread[numThreads];
+        for(int i=0; i<numThreads; i++)
+            threads[i] = new Thread(tester);
+
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for(Thread t : threads)
+            t.start();
+        for(Thread t : threads) {
+            try {
+                if(!deadlocked)
+                    t.join(DEADLOCK_TIMEOUT);
+                if(t.isAlive()) {
+                    deadlocked = true;
+                    t.interrupt();
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+
+        if(!deadlocked) {
+            // Stop timer, drain the queue in order, and print logs
+            long timeAfter = System.currentTimeMillis();
+            int actualSize = 0, outOfOrder = 0;
+            long last = Long.MIN_VALUE;
+            Long item;
+            while((item = queue.removeMin()) != null) {
+                if(item < last)
+                    outOfOrder++;
+                last = item;
+                actualSize++;
+            }
+            results.actualSize.set(actualSize);
+            results.expectedSize.addAndGet(results.successfulAdditions.get() - results.successfulRemovals.get());
+            results.executionTime.set((int)(timeAfter - timeBefore));
+            results.printInfo();
+            if(strict && outOfOrder > 0)
+                System.out.printf("Items drained out of order: %d\n\n", outOfOrder);
+        } else {
+            System.out.printf("Deadlock detected, forcing continuation\n\n");
+        }
+    }
+
+    // Run numThreads threads logging every add and successful remove at the tick of a
+    // shared clock, then replay the log in order, counting for each remove how many
+    // smaller items were present, and print the histogram of those rank errors. The
+    // tick is taken before an add and after a remove, so an item is always logged as
+    // added before it is logged as removed. Neither tick is taken inside the operation,
+    // so another thread's add logged early or remove logged late can show up as error
+    // in any queue, strict or not. The clock adds contention of its own, so these runs
+    // aren't timed.
+    private static void rankError(String name, PriorityQueue<Long> queue, int k, int m) {
+
+        // Prefill, counting the items straight into the tree
+        FenwickTree present = new FenwickTree((int)PRIORITY_RANGE);
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        for(int i=0; i<PREFILL; i++) {
+            long priority = rng.nextLong(PRIORITY_RANGE);
+            queue.add(priority, priority);
+            present.add((int)priority, 1);
+        }
+
+        // Log each thread's operations, with adds as their priority and removes as its complement
+        long[] log = new long[numThreads * m];
+        AtomicInteger clock = new AtomicInteger(0);
+        Thread[] threads = new Thread[numThreads];
+        for(int i=0; i<numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                ThreadLocalRandom r = ThreadLocalRandom.current();
+                for(int j=0; j<m; j++) {
+                    int op = r.nextInt(100);
+                    if(op >= k) {
+                        long priority = r.nextLong(PRIORITY_RANGE);
+                        log[clock.getAndIncrement()] = priority;
+                        queue.add(priority, priority);
+                    } else if(op < k/2) {
+                        queue.peekMin();
+                    } else {
+                        Long item = queue.removeMin();
+                        if(item != null)
+                            log[clock.getAndIncrement()] = ~item;
+                    }
+                }
+            });
+        }
+        for(Thread t : threads)
+            t.start();
+        for(Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Replay the log, bucketing rank errors by powers of two, 0, 1, 2-3, 4-7 and so on
+        long[] histogram = new long[Integer.SIZE + 1];
+        long removes = 0, totalRank = 0, maxRank = 0;
+        for(int tick=0, ticks=clock.get(); tick<ticks; tick++) {
+            long entry = log[tick];
+            if(entry >= 0) {
+                present.add((int)entry, 1);
+                continue;
+            }
+            int priority = (int)~entry;
+            long rank = present.countBelow(priority);
+            present.add(priority, -1);
+            histogram[64 - Long.numberOfLeadingZeros(rank)]++;
+            removes++;
+            totalRank += rank;
+            maxRank = Math.max(maxRank, rank);
+        }
+
+        // Print the results
+        System.out.printf("<< %s >>\n", name);
+        System.out.printf("Removes logged: %d\n", removes);
+        System.out.printf("Mean rank error: %.2f\n", removes == 0 ? 0.0 : (double)totalRank / removes);
+        System.out.printf("Max rank error: %d\n", maxRank);
+        for(int b=0; b<histogram.length && removes > 0 && (b == 0 || 1L << (b - 1) <= maxRank); b++) {
+            String bucket = b <= 1 ? String.valueOf(b) : (1L << (b - 1)) + "-" + ((1L << b) - 1);
+            System.out.printf("  %-12s %6.2f%%\n", bucket, 100.0 * histogram[b] / removes);
+        }
+        System.out.printf("\n");
+    }
+
+    // Fenwick tree of counts per priority, for the number of items below a priority in log time
+    private static final class FenwickTree {
+        private final int[] tree;
+
+        FenwickTree(int size) {
+            tree = new int[size + 1];
+        }
+
+        // Add delta to the count of a priority
+        void add(int priority, int delta) {
+            for(int i = priority + 1; i < tree.length; i += i & -i)
+                tree[i] += delta;
+        }
+
+        // Number of items with a priority below the given one
+        long countBelow(int priority) {
+            long count = 0;
+            for(int i = priority; i > 0; i -= i & -i)
+                count += tree[i];
+            return count;
+        }
+    }
+}
+
+// This class tests a PriorityQueue implementation, adding random priorities
+class PriorityQueueTester implements Runnable {
+
+    // Private variables
+    private PriorityQueue<Long> queue;
+    private boolean byComparator;
+    private int k;
+    private int m;
+    private SimResults results;
+
+    // Basic constructor with shared PriorityQueue reference
+    public PriorityQueueTester(PriorityQueue<Long> queue, boolean byComparator, int k, int m, SimResults results) {
+        this.queue        = queue;
+        this.byComparator = byComparator;
+        this.k            = k;
+        this.m            = m;
+        this.results      = results;
+    }
+
+    // Threads constructed using this runnable implementation will simulate usage as below
+    @Override
+    public void run() {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        long before = Allocations.allocatedBytes();
+        for(int i=0; i<m; i++) {
+            int op = rng.nextInt(100);
+            if(op >= k) {
+                add(queue, rng.nextLong(PriorityQueueSimulation.PRIORITY_RANGE), byComparator);
+                results.successfulAdditions.incrementAndGet();
+            } else if(op < k/2) {
+                if(queue.peekMin() != null)
+                    results.successfulPeeks.incrementAndGet();
+                else
+                    results.failedPeeks.incrementAndGet();
+            } else {
+                if(queue.removeMin() != null)
+                    results.successfulRemovals.incrementAndGet();
+                else
+                    results.failedRemovals.incrementAndGet();
+            }
+        }
+        results.allocatedBytes.addAndGet(Allocations.allocatedBytes() - before);
+    }
+
+    // Add an item holding its own priority, passed as the long priority or left to the comparator
+    static void add(PriorityQueue<Long> queue, long priority, boolean byComparator) {
+        if(byComparator)
+            queue.add(Long.valueOf(priority));
+        else
+            queue.add(priority, Long.valueOf(priority));
+    }
+}
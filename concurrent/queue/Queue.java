@@ -1,10 +1,36 @@
 package concurrent.queue;
+import java.util.Collection;
 
-// Generic Queue interface for concurrent queues
+// Generic Queue interface for concurrent queues. The batch operations default to one
+// add or remove per item, and implementations override them to take the contended
+// path once per batch. poll() never waits, so queues whose remove() waits override it.
 
 public interface Queue<T> {
     void add(T item);
     T remove();
     T element();
     boolean isEmpty();
-}
\ No newline at end of file
+
+    // Add every item in iteration order
+    default void addAll(Collection<? extends T> items) {
+        for(T item : items)
+            add(item);
+    }
+
+    // Remove the first item, returning null rather than waiting if the queue is empty
+    default T poll() {
+        return remove();
+    }
+
+    // Remove up to maxElements items into the collection in FIFO order, without waiting
+    // for more, and return how many were moved
+    default int drainTo(Collection<? super T> items, int maxElements) {
+        int n = 0;
+        T item;
+        while(n < maxElements && (item = poll()) != null) {
+            items.add(item);
+            n++;
+        }
+        return n;
+    }
+}
@@ -1,83 +1,176 @@
 package concurrent.queue;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Driver class for testing my FIFO queue implementations
 
 public class QueueSimulation {
 
-    public static void main(String[] args) {
+    // Constants
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEADLOCK_TIMEOUT = 5000;
+    private static final int CAPACITY = 1 << 20;
+    private static final int PIPELINE_CAPACITY = 1 << 14;
+    private static final int BATCH_SIZE = 16;
+    private static final Object ITEM = new Object();
+    private static int numThreads;
 
-        // Constants
-        final int NUM_THREADS = 4;
-        final int DEADLOCK_TIMEOUT = 5000;
+    public static void main(String[] args) {
 
-        // Local vars for timing and input params
-        long timeBefore, timeAfter;
-        boolean deadlocked = false;
+        // Input params
         int k = Integer.parseInt(args[0]);
         int m = Integer.parseInt(args[1]);
+        numThreads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
 
-        // Initialise thread arrays and results obejcts for each Queue implementation
-        Thread[] tA   = new Thread[NUM_THREADS];
-        Thread[] tB   = new Thread[NUM_THREADS];
-        SimResults rA = new SimResults("Blocking Stack");
-        SimResults rB = new SimResults("Lock Free Stack");
-
-        // Initialise the Queue objects, their respective testers and the thread objects
-        BlockingQueue<Object> qA = new BlockingQueue<Object>();
-        LockFreeQueue<Object> qB = new LockFreeQueue<Object>();
-        QueueTester<Object>    a = new QueueTester<Object>(qA, k, m, rA);
-        QueueTester<Object>    b = new QueueTester<Object>(qB, k, m, rB);
-        for (int i=0; i<NUM_THREADS; i++) {
-            tA[i] = new Thread(a);
-            tB[i] = new Thread(b);
-        }
-        
         // Print starting info
-        System.out.printf("%d threads\n", NUM_THREADS);
+        System.out.printf("%d threads\n", numThreads);
         System.out.printf("%d operations per thread\n", m);
         System.out.printf("%d%% chance of addition\n", (100-k));
         System.out.printf("%d%% chance of peek/element\n", (k/2));
         System.out.printf("%d%% chance of removal\n\n", (k/2));
-        
-        // Time the execution of all threads in tA
-        timeBefore = System.currentTimeMillis();
-        for (Thread t : tA)
+
+        // Time each queue implementation independently
+        simulate("Blocking Queue", new BlockingQueue<Object>(), k, m);
+        simulate("Two Lock Blocking Queue", new TwoLockBlockingQueue<Object>(), k, m);
+        simulate("Lock Free Queue", new LockFreeQueue<Object>(), k, m);
+        simulate("Michael Scott Queue", new MichaelScottQueue<Object>(), k, m);
+        simulate("MPMC Array Queue", new MpmcArrayQueue<Object>(CAPACITY), k, m);
+        simulate("Linked Array Queue", new LinkedArrayQueue<Object>(), k, m);
+        simulate("Linked Ring Queue", new LinkedRingQueue<Object>(), k, m);
+
+        // Pipelines, with one producer and one consumer
+        System.out.printf("1 producer, 1 consumer\n\n");
+        simulatePipeline("Blocking Queue", new BlockingQueue<Object>(), 1, m);
+        simulatePipeline("Two Lock Blocking Queue", new TwoLockBlockingQueue<Object>(), 1, m);
+        simulatePipeline("Two Lock Blocking Queue (bounded)", new TwoLockBlockingQueue<Object>(PIPELINE_CAPACITY), 1, m);
+        simulatePipeline("Lock Free Queue", new LockFreeQueue<Object>(), 1, m);
+        simulatePipeline("Michael Scott Queue", new MichaelScottQueue<Object>(), 1, m);
+        simulatePipeline("MPMC Array Queue", new MpmcArrayQueue<Object>(PIPELINE_CAPACITY), 1, m);
+        simulatePipeline("Linked Array Queue", new LinkedArrayQueue<Object>(), 1, m);
+        simulatePipeline("Linked Ring Queue", new LinkedRingQueue<Object>(), 1, m);
+        simulatePipeline("MPSC Array Queue", new MpscArrayQueue<Object>(PIPELINE_CAPACITY), 1, m);
+        simulatePipeline("MPSC Linked Queue", new MpscLinkedQueue<Object>(), 1, m);
+        simulatePipeline("SPSC Array Queue", new SpscArrayQueue<Object>(PIPELINE_CAPACITY), 1, m);
+
+        // Pipelines, with every other thread producing for one consumer
+        System.out.printf("\n%d producers, 1 consumer\n\n", numThreads - 1);
+        simulatePipeline("Blocking Queue", new BlockingQueue<Object>(), numThreads - 1, m);
+        simulatePipeline("Two Lock Blocking Queue", new TwoLockBlockingQueue<Object>(), numThreads - 1, m);
+        simulatePipeline("Two Lock Blocking Queue (bounded)", new TwoLockBlockingQueue<Object>(PIPELINE_CAPACITY), numThreads - 1, m);
+        simulatePipeline("Lock Free Queue", new LockFreeQueue<Object>(), numThreads - 1, m);
+        simulatePipeline("Michael Scott Queue", new MichaelScottQueue<Object>(), numThreads - 1, m);
+        simulatePipeline("MPMC Array Queue", new MpmcArrayQueue<Object>(PIPELINE_CAPACITY), numThreads - 1, m);
+        simulatePipeline("Linked Array Queue", new LinkedArrayQueue<Object>(), numThreads - 1, m);
+        simulatePipeline("Linked Ring Queue", new LinkedRingQueue<Object>(), numThreads - 1, m);
+        simulatePipeline("MPSC Array Queue", new MpscArrayQueue<Object>(PIPELINE_CAPACITY), numThreads - 1, m);
+        simulatePipeline("MPSC Linked Queue", new MpscLinkedQueue<Object>(), numThreads - 1, m);
+
+        // The same pipelines, moving items with addAll() and drainTo() in batches
+        System.out.printf("\n%d producers, 1 consumer, batches of %d\n\n", numThreads - 1, BATCH_SIZE);
+        simulatePipeline("Blocking Queue", new BlockingQueue<Object>(), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("Two Lock Blocking Queue", new TwoLockBlockingQueue<Object>(), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("Two Lock Blocking Queue (bounded)", new TwoLockBlockingQueue<Object>(PIPELINE_CAPACITY), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("Lock Free Queue", new LockFreeQueue<Object>(), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("Michael Scott Queue", new MichaelScottQueue<Object>(), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("MPMC Array Queue", new MpmcArrayQueue<Object>(PIPELINE_CAPACITY), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("Linked Array Queue", new LinkedArrayQueue<Object>(), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("Linked Ring Queue", new LinkedRingQueue<Object>(), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("MPSC Array Queue", new MpscArrayQueue<Object>(PIPELINE_CAPACITY), numThreads - 1, m, BATCH_SIZE);
+        simulatePipeline("MPSC Linked Queue", new MpscLinkedQueue<Object>(), numThreads - 1, m, BATCH_SIZE);
+    }
+
+    // Run a pipeline moving one item at a time
+    private static void simulatePipeline(String name, Queue<Object> queue, int numProducers, int m) {
+        simulatePipeline(name, queue, numProducers, m, 1);
+    }
+
+    // Run numProducers threads adding m items each and one thread removing them all,
+    // then print the execution time and the average number of bytes allocated per item.
+    // Producers retry when a bounded queue is full, and the consumer when it's empty.
+    // With a batchSize above 1, unbounded queues are filled with addAll(), bounded
+    // queues still one offer() at a time, and every queue is emptied with drainTo().
+    static void simulatePipeline(String name, Queue<Object> queue, int numProducers, int m, int batchSize) {
+        long total = (long)numProducers * m;
+        List<Object> batch = Collections.nCopies(batchSize, ITEM);
+        AtomicLong allocatedBytes = new AtomicLong(0);
+        AtomicLong received = new AtomicLong(0);
+
+        // Initialise the producers and the consumer
+        Thread[] threads = new Thread[numProducers + 1];
+        for(int i=0; i<numProducers; i++) {
+            threads[i] = new Thread(() -> {
+                long before = Allocations.allocatedBytes();
+                for(int j=0; j<m; j++) {
+                    if(batchSize > 1 && !(queue instanceof BoundedQueue) && j + batchSize <= m) {
+                        queue.addAll(batch);
+                        j += batchSize - 1;
+                    } else if(queue instanceof BoundedQueue) {
+                        while(!((BoundedQueue<Object>)queue).offer(ITEM))
+                            Thread.yield();
+                    } else {
+                        queue.add(ITEM);
+                    }
+                }
+                allocatedBytes.addAndGet(Allocations.allocatedBytes() - before);
+            });
+        }
+        threads[numProducers] = new Thread(() -> {
+            long before = Allocations.allocatedBytes();
+            List<Object> drained = new ArrayList<Object>(batchSize);
+            long count = 0;
+            while(count < total) {
+                int n;
+                if(batchSize > 1) {
+                    n = queue.drainTo(drained, batchSize);
+                    drained.clear();
+                } else {
+                    n = queue.remove() != null ? 1 : 0;
+                }
+                if(n > 0)
+                    count += n;
+                else
+                    Thread.yield();
+            }
+            received.set(count);
+            allocatedBytes.addAndGet(Allocations.allocatedBytes() - before);
+        });
+
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for (Thread t : threads)
             t.start();
-        for (Thread t : tA) {
+        for (Thread t : threads) {
             try {
-                if (!deadlocked)
-                    t.join(DEADLOCK_TIMEOUT);
-                if (t.isAlive()) {
-                    deadlocked = true;
-                    t.interrupt();
-                }
+                t.join();
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
         }
-        
-        if (!deadlocked) {
-            // Stop timer and print logs
-            timeAfter = System.currentTimeMillis();
-            int actualSize = 0;
-            while(!qA.isEmpty()) { actualSize++; qA.remove(); }
-            rA.actualSize.set(actualSize);
-            rA.expectedSize.addAndGet(rA.successfulAdditions.get() - rA.successfulRemovals.get());
-            rA.executionTime.set((int)(timeAfter - timeBefore));
-            rA.printInfo();
-        } else {
-            deadlocked = false;
-            System.out.printf("Deadlock detected, forcing continuation\n\n");
-        }
+        long timeAfter = System.currentTimeMillis();
+        System.out.printf("%s execution time: %dms, %.1f bytes allocated per item, %d of %d items received\n",
+            name, timeAfter-timeBefore, (double)allocatedBytes.get() / total, received.get(), total);
+    }
+
+    // Run numThreads threads sharing one tester, then drain the queue and print the results
+    private static void simulate(String name, Queue<Object> queue, int k, int m) {
 
-        // Time the execution of all threads in tB
-        timeBefore = System.currentTimeMillis();
-        for (Thread t : tB)
+        // Initialise the threads, all sharing one tester
+        boolean deadlocked = false;
+        SimResults results = new SimResults(name);
+        QueueTester<Object> tester = new QueueTester<Object>(queue, k, m, results);
+        Thread[] threads = new Thread[numThreads];
+        for (int i=0; i<numThreads; i++)
+            threads[i] = new Thread(tester);
+
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for (Thread t : threads)
             t.start();
-        for (Thread t : tB) {
+        for (Thread t : threads) {
             try {
                 if (!deadlocked)
                     t.join(DEADLOCK_TIMEOUT);
@@ -92,18 +185,17 @@ public class QueueSimulation {
 
         if (!deadlocked) {
             // Stop timer and print logs
-            timeAfter = System.currentTimeMillis();
+            long timeAfter = System.currentTimeMillis();
             int actualSize = 0;
-            while(!qB.isEmpty()) { actualSize++; qB.remove(); }
-            rB.actualSize.set(actualSize);
-            rB.expectedSize.addAndGet(rB.successfulAdditions.get() - rB.successfulRemovals.get());
-            rB.executionTime.set((int)(timeAfter - timeBefore));
-            rB.printInfo();
+            while(!queue.isEmpty()) { actualSize++; queue.remove(); }
+            results.actualSize.set(actualSize);
+            results.expectedSize.addAndGet(results.successfulAdditions.get() - results.successfulRemovals.get());
+            results.executionTime.set((int)(timeAfter - timeBefore));
+            results.printInfo();
         } else {
-            deadlocked = false;
             System.out.printf("Deadlock detected, forcing continuation\n\n");
         }
-    }   
+    }
 }
 
 // This class tests a Queue implementation
@@ -129,10 +221,15 @@ class QueueTester<T> implements Runnable {
     @SuppressWarnings("unchecked")
     @Override
     public void run() {
+        long before = Allocations.allocatedBytes();
         for (int i=0; i<m; i++) {
             if (rng.nextInt(100) >= k || queue.isEmpty()) {
-                queue.add((T)new Object());      // Add
-                results.successfulAdditions.incrementAndGet();
+                try {
+                    queue.add((T)new Object());  // Add
+                    results.successfulAdditions.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    results.failedAdditions.incrementAndGet(); // Bounded queue was full
+                }
             } else {
                 if (rng.nextBoolean()) {         // Element
                     if(queue.element() != null) { 
@@ -149,52 +246,6 @@ class QueueTester<T> implements Runnable {
                 }
             }
         }
+        results.allocatedBytes.addAndGet(Allocations.allocatedBytes() - before);
     }
 }
-
-// Helper class for returning simulation results
-class SimResults {
-    public String name;
-    public AtomicInteger successfulAdditions;
-    public AtomicInteger failedAdditions;
-    public AtomicInteger successfulRemovals;
-    public AtomicInteger failedRemovals;
-    public AtomicInteger successfulPeeks;
-    public AtomicInteger failedPeeks;
-    public AtomicInteger actualSize;
-    public AtomicInteger expectedSize;
-    public AtomicInteger descrepancies;
-    public AtomicInteger executionTime;
-
-    // Basic constructor
-    public SimResults(String name) {
-        // Set name
-        this.name = name;
-
-        // Init all results to 0
-        this.successfulAdditions = new AtomicInteger(0);
-        this.failedAdditions     = new AtomicInteger(0);
-        this.successfulRemovals  = new AtomicInteger(0);
-        this.failedRemovals      = new AtomicInteger(0);
-        this.successfulPeeks     = new AtomicInteger(0);
-        this.failedPeeks         = new AtomicInteger(0);
-        this.actualSize          = new AtomicInteger(0);
-        this.expectedSize        = new AtomicInteger(0);
-        this.descrepancies       = new AtomicInteger(0);
-        this.executionTime       = new AtomicInteger(0);
-    }
-
-    public void printInfo() {
-        System.out.printf("<< %s >>\n\n", name);
-        System.out.printf("Execution time: %dms\n", executionTime.get());
-        System.out.printf("Successful insertions: %d\n", successfulAdditions.get());
-        System.out.printf("Failed insertions: %d\n", failedAdditions.get());
-        System.out.printf("Successful removals: %d\n", successfulRemovals.get());
-        System.out.printf("Failed removals: %d\n", failedRemovals.get());
-        System.out.printf("Successful peeks: %d\n", successfulPeeks.get());
-        System.out.printf("Failed peeks: %d\n", failedPeeks.get());
-        System.out.printf("Expected final size: %d\n", expectedSize.get());
-        System.out.printf("Actual final size: %d\n", actualSize.get());
-        System.out.printf("Discrepancies detected: %d\n\n", Math.abs(actualSize.get()-expectedSize.get()));
-    }
-}
\ No newline at end of file
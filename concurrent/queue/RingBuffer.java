@@ -0,0 +1,153 @@
+package concurrent.queue;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import concurrent.wait.BlockingWaitStrategy;
+import concurrent.wait.WaitStrategy;
+
+// Thread-safe ring of pre-allocated events for any number of producer threads, in
+// the style of the LMAX Disruptor.
+
+// Every slot is filled with an event from the factory up front, and events are
+// written in place rather than handed over, so nothing is allocated per message.
+// Producers claim a range of sequences with a single getAndAdd() on the cursor, fill
+// the events at those sequences, and publish them. As claims can be published out of
+// order, each slot records the lap of the ring it was last published on, with a
+// release store, so a consumer knows a sequence is ready once its slot shows the
+// right lap. Consumers don't remove anything. Each keeps a Sequence of the last event
+// it has handled, and waits on a SequenceBarrier for the ring's producers, or for the
+// consumers it depends on, so consumers can be chained into a dependency graph. The
+// sequences of the last consumers gate the producers, which wait rather than claim a
+// slot still being read. The cursor's cache holds the lowest gating sequence last
+// seen, so producers usually check for room without reading any consumer's line.
+
+public class RingBuffer<E> {
+
+    // VarHandle for the published laps
+    private static final VarHandle AVAILABLE = MethodHandles.arrayElementVarHandle(int[].class);
+
+    // Internal data
+    private final int mask;
+    private final int indexShift;
+    private final Object[] entries;
+    private final int[] available;                          // Lap each slot was last published on
+    private final PaddedCursor cursor;                      // Caches the lowest gating sequence
+    private final WaitStrategy waitStrategy;
+    private volatile Sequence[] gatingSequences;
+
+    // Constructor with the event factory and the minimum size, rounded up to a power
+    // of two, with consumers blocking while they wait
+    public RingBuffer(Supplier<E> factory, int size) {
+        this(factory, size, new BlockingWaitStrategy());
+    }
+
+    // Constructor with the event factory, the minimum size, and the strategy
+    // consumers wait with
+    public RingBuffer(Supplier<E> factory, int size, WaitStrategy waitStrategy) {
+        if(size <= 0 || size > 1 << 30)
+            throw new IllegalArgumentException("Size out of range: " + size);
+        int length        = size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        mask              = length - 1;
+        indexShift        = Integer.numberOfTrailingZeros(length);
+        entries           = new Object[length];
+        for(int i=0; i<length; i++)
+            entries[i] = factory.get();
+        available         = new int[length];
+        Arrays.fill(available, -1);
+        cursor            = new PaddedCursor();
+        cursor.setRelease(-1);
+        cursor.setCacheOpaque(-1);
+        this.waitStrategy = waitStrategy;
+        gatingSequences   = new Sequence[0];
+    }
+
+    // Thread-safe claim of the next sequence, waiting while the ring is full
+    public long next() {
+        return next(1);
+    }
+
+    // Thread-safe claim of the next n sequences, waiting while the ring is full, and
+    // returning the highest of them
+    public long next(int n) {
+        if(n < 1 || n > entries.length)
+            throw new IllegalArgumentException("Can only claim 1 to " + entries.length + " sequences: " + n);
+
+        long current   = cursor.getAndAdd(n);
+        long next      = current + n;
+        long wrapPoint = next - entries.length;             // Sequence the slots were last used for
+        long gating    = cursor.getCacheOpaque();
+        if(wrapPoint > gating || gating > current) {
+            // Wait for the slowest gating consumer to finish with the slots
+            while(wrapPoint > (gating = Sequence.minimum(gatingSequences, current)))
+                Thread.yield();
+            cursor.setCacheOpaque(gating);
+        }
+        return next;
+    }
+
+    // Event at a claimed or published sequence
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E)entries[(int)sequence & mask];
+    }
+
+    // Publish the event at a claimed sequence
+    public void publish(long sequence) {
+        setAvailable(sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    // Publish the events at a claimed range of sequences, waking waiters once
+    public void publish(long lo, long hi) {
+        for(long sequence = lo; sequence <= hi; sequence++)
+            setAvailable(sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    // Atomic at the point of reading
+    public boolean isPublished(long sequence) {
+        return (int)AVAILABLE.getAcquire(available, (int)sequence & mask) == (int)(sequence >>> indexShift);
+    }
+
+    // Highest sequence from lo up to hi with every sequence before it published
+    public long getHighestPublishedSequence(long lo, long hi) {
+        for(long sequence = lo; sequence <= hi; sequence++) {
+            if(!isPublished(sequence))
+                return sequence - 1;
+        }
+        return hi;
+    }
+
+    // Highest sequence claimed so far, published or not
+    public long getCursor() { return cursor.get(); }
+
+    // Number of slots in the ring
+    public int getBufferSize() { return entries.length; }
+
+    // Stop producers from overtaking these sequences, normally those of the last
+    // consumers in the graph. Must be called before anything is published.
+    public synchronized void addGatingSequences(Sequence... sequences) {
+        Sequence[] current = gatingSequences;
+        Sequence[] updated = Arrays.copyOf(current, current.length + sequences.length);
+        System.arraycopy(sequences, 0, updated, current.length, sequences.length);
+        gatingSequences = updated;
+    }
+
+    // Barrier for a consumer which waits on the producers, or on the consumers with
+    // the given sequences if there are any
+    public SequenceBarrier newBarrier(Sequence... dependents) {
+        return new SequenceBarrier(this, waitStrategy, dependents);
+    }
+
+    // Wake consumers blocked waiting on a sequence which has just moved on
+    void signalAllWhenBlocking() {
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    // Mark the slot of a sequence as published on its lap
+    private void setAvailable(long sequence) {
+        AVAILABLE.setRelease(available, (int)sequence & mask, (int)(sequence >>> indexShift));
+    }
+}
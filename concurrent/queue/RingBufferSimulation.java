@@ -0,0 +1,120 @@
+package concurrent.queue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import concurrent.wait.YieldingWaitStrategy;
+
+// Driver class for comparing my ring buffer against my FIFO queues
+
+public class RingBufferSimulation {
+
+    // Constants
+    private static final int[] NUM_PRODUCERS = { 1, 4, 16 };
+    private static final int RING_SIZE = 1 << 14;
+
+    public static void main(String[] args) {
+
+        // Input params
+        int k = Integer.parseInt(args[0]);
+        int m = Integer.parseInt(args[1]);
+
+        // Print starting info
+        System.out.printf("1 consumer\n");
+        System.out.printf("%d items per producer\n", m);
+        System.out.printf("Batches of %d\n", k);
+
+        // Time each queue against the ring buffer, for each number of producers
+        for(int numProducers : NUM_PRODUCERS) {
+            System.out.printf("\n%d producers\n\n", numProducers);
+            QueueSimulation.simulatePipeline("Blocking Queue", new BlockingQueue<Object>(), numProducers, m, k);
+            QueueSimulation.simulatePipeline("Lock Free Queue", new LockFreeQueue<Object>(), numProducers, m, k);
+            QueueSimulation.simulatePipeline("Michael Scott Queue", new MichaelScottQueue<Object>(), numProducers, m, k);
+            QueueSimulation.simulatePipeline("MPMC Array Queue", new MpmcArrayQueue<Object>(RING_SIZE), numProducers, m, k);
+            QueueSimulation.simulatePipeline("Linked Array Queue", new LinkedArrayQueue<Object>(), numProducers, m, k);
+            QueueSimulation.simulatePipeline("Linked Ring Queue", new LinkedRingQueue<Object>(), numProducers, m, k);
+            QueueSimulation.simulatePipeline("MPSC Array Queue", new MpscArrayQueue<Object>(RING_SIZE), numProducers, m, k);
+            simulate("Ring Buffer", numProducers, k, m, false);
+            simulate("Ring Buffer (2 chained consumers)", numProducers, k, m, true);
+        }
+    }
+
+    // Run numProducers threads each claiming m events in ranges of k and filling them
+    // in place, and a processor summing them, or a processor doubling them followed by
+    // one summing them if chained. Then print the execution time, the average number
+    // of bytes allocated per event, and whether every event was summed.
+    private static void simulate(String name, int numProducers, int k, int m, boolean chained) {
+        long total = (long)numProducers * m;
+        RingBuffer<ValueEvent> ring = new RingBuffer<ValueEvent>(ValueEvent::new, RING_SIZE, new YieldingWaitStrategy());
+        AtomicLong allocatedBytes = new AtomicLong(0);
+        long[] sum = new long[1];
+
+        // Chain the processors, the last of which gates the producers
+        BatchEventProcessor<ValueEvent> doubler = null;
+        SequenceBarrier barrier = ring.newBarrier();
+        if(chained) {
+            doubler = new BatchEventProcessor<ValueEvent>(ring, barrier,
+                (event, sequence, endOfBatch) -> event.value *= 2);
+            barrier = ring.newBarrier(doubler.getSequence());
+        }
+        BatchEventProcessor<ValueEvent> summer = new BatchEventProcessor<ValueEvent>(ring, barrier,
+            (event, sequence, endOfBatch) -> sum[0] += event.value);
+        ring.addGatingSequences(summer.getSequence());
+
+        // Initialise the producers, each publishing the values 1 to m
+        Thread[] producers = new Thread[numProducers];
+        for(int i=0; i<numProducers; i++) {
+            producers[i] = new Thread(() -> {
+                long before = Allocations.allocatedBytes();
+                for(int j=0; j<m; ) {
+                    int n = Math.min(k, m - j);
+                    long hi = ring.next(n);
+                    long lo = hi - n + 1;
+                    for(long s = lo; s <= hi; s++)
+                        ring.get(s).value = ++j;
+                    ring.publish(lo, hi);
+                }
+                allocatedBytes.addAndGet(Allocations.allocatedBytes() - before);
+            });
+        }
+        Thread[] processors = chained ? new Thread[] { processorThread(doubler, allocatedBytes),
+            processorThread(summer, allocatedBytes) } : new Thread[] { processorThread(summer, allocatedBytes) };
+
+        // Time the execution of all threads, halting the processors in order once the producers finish
+        long timeBefore = System.currentTimeMillis();
+        for(Thread t : processors)
+            t.start();
+        for(Thread t : producers)
+            t.start();
+        try {
+            for(Thread t : producers)
+                t.join();
+            if(chained) {
+                doubler.halt();
+                processors[0].join();
+            }
+            summer.halt();
+            processors[processors.length - 1].join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        long timeAfter = System.currentTimeMillis();
+        long expected = numProducers * ((long)m * (m + 1) / 2) * (chained ? 2 : 1);
+        System.out.printf("%s execution time: %dms, %.1f bytes allocated per item, %d of %d items received%s\n",
+            name, timeAfter-timeBefore, (double)allocatedBytes.get() / total, summer.getSequence().get() + 1,
+            total, sum[0] == expected ? "" : ", WRONG SUM");
+    }
+
+    // Thread running a processor, recording what it allocates
+    private static Thread processorThread(BatchEventProcessor<ValueEvent> processor, AtomicLong allocatedBytes) {
+        return new Thread(() -> {
+            long before = Allocations.allocatedBytes();
+            processor.run();
+            allocatedBytes.addAndGet(Allocations.allocatedBytes() - before);
+        });
+    }
+
+    // Pre-allocated event, filled in place by the producers
+    private static final class ValueEvent {
+        long value;
+    }
+}
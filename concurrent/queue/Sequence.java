@@ -0,0 +1,31 @@
+package concurrent.queue;
+
+// Position of a producer or consumer in a RingBuffer, padded onto its own cache line.
+// A sequence starts at -1, before the first event, and only its owner moves it on,
+// publishing with a release store.
+
+public final class Sequence {
+
+    // Internal data
+    private final PaddedCursor value;
+
+    // Basic constructor, starting before the first event
+    public Sequence() {
+        value = new PaddedCursor();
+        value.setRelease(-1);
+    }
+
+    // Last event this sequence has reached
+    public long get() { return value.get(); }
+
+    // Owner only, publishing everything up to newValue
+    public void set(long newValue) { value.setRelease(newValue); }
+
+    // Smallest of the sequences, or otherwise if there are none
+    static long minimum(Sequence[] sequences, long otherwise) {
+        long min = otherwise;
+        for(Sequence sequence : sequences)
+            min = Math.min(min, sequence.get());
+        return min;
+    }
+}
@@ -0,0 +1,62 @@
+package concurrent.queue;
+import java.util.function.Supplier;
+
+import concurrent.wait.WaitStrategy;
+
+// Barrier a RingBuffer consumer waits on before reading events. With no dependents
+// it waits for the producers to publish the next sequence, and otherwise for every
+// consumer it depends on to have handled it, which chains the consumers into a graph.
+// waitFor() then returns the highest sequence available, so the consumer can handle
+// a whole batch before waiting again. A barrier belongs to a single consumer thread.
+
+public final class SequenceBarrier {
+
+    // Returned by the wait strategy's poll once the sequence is available
+    private static final Object READY = new Object();
+
+    // Internal data
+    private final RingBuffer<?> ringBuffer;
+    private final WaitStrategy waitStrategy;
+    private final Sequence[] dependents;
+    private final Supplier<Object> ready;
+    private long waitingFor;                                // Only touched by the consumer
+    private volatile boolean alerted;
+
+    // Constructor, used by RingBuffer.newBarrier()
+    SequenceBarrier(RingBuffer<?> ringBuffer, WaitStrategy waitStrategy, Sequence[] dependents) {
+        this.ringBuffer   = ringBuffer;
+        this.waitStrategy = waitStrategy;
+        this.dependents   = dependents.clone();
+        this.ready        = () -> alerted || isAvailable(waitingFor) ? READY : null;
+    }
+
+    // Wait until sequence is available, and return the highest sequence available from
+    // it on. Once alerted, returns sequence - 1 rather than waiting if it isn't.
+    public long waitFor(long sequence) {
+        if(!isAvailable(sequence)) {
+            waitingFor = sequence;
+            waitStrategy.waitFor(ready, Long.MAX_VALUE);
+            if(!isAvailable(sequence))
+                return sequence - 1;                         // Alerted with nothing to handle
+        }
+        if(dependents.length > 0)
+            return Sequence.minimum(dependents, Long.MAX_VALUE);
+        return ringBuffer.getHighestPublishedSequence(sequence, ringBuffer.getCursor());
+    }
+
+    // Stop the consumer waiting once it has caught up
+    public void alert() {
+        alerted = true;
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    // Atomic at the point of reading
+    public boolean isAlerted() { return alerted; }
+
+    // True once the consumer can read the event at sequence
+    private boolean isAvailable(long sequence) {
+        if(dependents.length > 0)
+            return Sequence.minimum(dependents, Long.MAX_VALUE) >= sequence;
+        return ringBuffer.isPublished(sequence);
+    }
+}
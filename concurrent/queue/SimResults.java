@@ -0,0 +1,60 @@
+package concurrent.queue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Helper class for returning simulation results
+class SimResults {
+    public String name;
+    public AtomicInteger successfulAdditions;
+    public AtomicInteger failedAdditions;
+    public AtomicInteger successfulRemovals;
+    public AtomicInteger failedRemovals;
+    public AtomicInteger successfulPeeks;
+    public AtomicInteger failedPeeks;
+    public AtomicInteger actualSize;
+    public AtomicInteger expectedSize;
+    public AtomicInteger descrepancies;
+    public AtomicInteger executionTime;
+    public AtomicLong allocatedBytes;
+
+    // Basic constructor
+    public SimResults(String name) {
+        // Set name
+        this.name = name;
+
+        // Init all results to 0
+        this.successfulAdditions = new AtomicInteger(0);
+        this.failedAdditions     = new AtomicInteger(0);
+        this.successfulRemovals  = new AtomicInteger(0);
+        this.failedRemovals      = new AtomicInteger(0);
+        this.successfulPeeks     = new AtomicInteger(0);
+        this.failedPeeks         = new AtomicInteger(0);
+        this.actualSize          = new AtomicInteger(0);
+        this.expectedSize        = new AtomicInteger(0);
+        this.descrepancies       = new AtomicInteger(0);
+        this.executionTime       = new AtomicInteger(0);
+        this.allocatedBytes      = new AtomicLong(0);
+    }
+
+    public void printInfo() {
+        System.out.printf("<< %s >>\n\n", name);
+        System.out.printf("Execution time: %dms\n", executionTime.get());
+        System.out.printf("Bytes allocated per op: %.1f\n", (double)allocatedBytes.get() / Math.max(1, numOps()));
+        System.out.printf("Successful insertions: %d\n", successfulAdditions.get());
+        System.out.printf("Failed insertions: %d\n", failedAdditions.get());
+        System.out.printf("Successful removals: %d\n", successfulRemovals.get());
+        System.out.printf("Failed removals: %d\n", failedRemovals.get());
+        System.out.printf("Successful peeks: %d\n", successfulPeeks.get());
+        System.out.printf("Failed peeks: %d\n", failedPeeks.get());
+        System.out.printf("Expected final size: %d\n", expectedSize.get());
+        System.out.printf("Actual final size: %d\n", actualSize.get());
+        System.out.printf("Discrepancies detected: %d\n\n", Math.abs(actualSize.get()-expectedSize.get()));
+    }
+
+    // Total number of operations run by the testers
+    private long numOps() {
+        return (long)successfulAdditions.get() + failedAdditions.get() + successfulRemovals.get()
+            + failedRemovals.get() + successfulPeeks.get() + failedPeeks.get();
+    }
+}
@@ -0,0 +1,224 @@
+package concurrent.queue;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Thread-safe priority queue implementation using lock free synchronization, built on
+// a skiplist after Linden and Jonsson's priority queue with minimal memory contention.
+
+// Items are kept sorted in a skiplist. removeMin() deletes the first live node on the
+// bottom level by marking the level 0 link to it, so a node is logically deleted when
+// the link from its predecessor is marked, and the deleted nodes always form a prefix
+// of the list. Adds are never linked in between deleted nodes, because their CAS on the
+// predecessor's link expects it unmarked, so an add whose place falls inside the prefix
+// goes in right after its last node instead. Removes only ever mark links, and rather
+// than each unlinking its own node, the deleted prefix is left to build up. Once a
+// remove has walked past BOUND_OFFSET deleted nodes, it cuts the whole prefix off with
+// a single CAS on the head's level 0 link, and then moves the head's upper level links
+// past the deleted nodes too. So the head's links are only written once per batch of
+// deletes, instead of every remove contending on them. The predecessor arrays and mark
+// holders each operation needs are kept per thread, so only adds allocate, for the node.
+
+public class SkipListPriorityQueue<T> implements PriorityQueue<T> {
+
+    // Constants
+    private static final int MAX_LEVEL = 24;
+    private static final int BOUND_OFFSET = 32;             // Deleted nodes walked past before cutting the prefix off
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // Internal data
+    private final Comparator<? super T> comparator;
+    private final Node<T> head;
+    private final Node<T> tail;
+
+    // Basic constructor, for items ordered by long priority alone
+    public SkipListPriorityQueue() {
+        this(null);
+    }
+
+    // Constructor with the comparator to order items of equal priority by
+    public SkipListPriorityQueue(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.tail       = new Node<T>(Long.MAX_VALUE, null, MAX_LEVEL, null);
+        this.head       = new Node<T>(Long.MIN_VALUE, null, MAX_LEVEL, tail);
+    }
+
+    // Thread-safe add
+    @Override
+    public void add(long priority, T item) {
+        if(item == null)
+            throw new NullPointerException("SkipListPriorityQueue can't hold null items");
+
+        int height = randomLevel();
+        Scratch scratch = SCRATCH.get();
+        @SuppressWarnings("unchecked")
+        Node<T>[] preds = (Node<T>[])scratch.preds;
+        @SuppressWarnings("unchecked")
+        Node<T>[] succs = (Node<T>[])scratch.succs;
+        Node<T> newNode = new Node<T>(priority, item, height, null);
+
+        // Link the bottom level, which makes the item visible
+        Node<T> lastDeleted;
+        do {
+            lastDeleted = locatePreds(newNode, preds, succs, scratch.mark);
+            newNode.next0.set(succs[0], false);
+        } while(!preds[0].next0.compareAndSet(succs[0], newNode, false, false));
+
+        // Link the upper levels, giving up once the node or its successors are deleted
+        for(int i=1; i<height; i++) {
+            while(true) {
+                newNode.next.set(i, succs[i]);
+                if(newNode.isDeleted() || succs[i].isDeleted() || succs[i] == lastDeleted)
+                    return;
+                if(preds[i].next.compareAndSet(i, succs[i], newNode))
+                    break;
+                lastDeleted = locatePreds(newNode, preds, succs, scratch.mark);
+                if(succs[0] != newNode)
+                    return;                                  // Already removed
+            }
+        }
+    }
+
+    // Thread-safe remove of the smallest item
+    @Override
+    public T removeMin() {
+        boolean[] mark  = SCRATCH.get().mark;
+        Node<T> obsHead = head.next0.get(mark);
+        boolean obsMark = mark[0];
+        Node<T> x = head;
+        int offset = 0;
+
+        // Walk the deleted prefix, then mark the link to the first live node
+        while(true) {
+            Node<T> next = x.next0.get(mark);
+            if(next == tail)
+                return null;                                 // Queue was empty
+            if(mark[0]) {
+                x = next;                                    // Already deleted, move past it
+                offset++;
+                continue;
+            }
+            if(x.next0.compareAndSet(next, next, false, true)) {
+                x = next;
+                break;
+            }
+        }
+
+        // Cut the deleted prefix off once it is long enough, leaving our node as the first
+        if(offset >= BOUND_OFFSET && head.next0.compareAndSet(obsHead, x, obsMark, true))
+            restructure();
+        return x.item;
+    }
+
+    // Thread-safe peek at the smallest item - Atomic at the point of reading each link
+    @Override
+    public T peekMin() {
+        Node<T> x = head;
+        boolean[] mark = SCRATCH.get().mark;
+        Node<T> next;
+        while((next = x.next0.get(mark)) != tail) {
+            if(!mark[0])
+                return next.item;
+            x = next;
+        }
+        return null;                                         // null if empty queue
+    }
+
+    // Atomic at the point of reading each link
+    @Override
+    public boolean isEmpty() {
+        return peekMin() == null;
+    }
+
+    // Find the predecessors and successors of a new node on every level, moving past
+    // deleted nodes whatever their order, and return the last deleted node passed on
+    // the bottom level, or null if there wasn't one
+    private Node<T> locatePreds(Node<T> node, Node<T>[] preds, Node<T>[] succs, boolean[] mark) {
+        Node<T> x = head;
+        Node<T> lastDeleted = null;
+        for(int i=MAX_LEVEL-1; i>=0; i--) {
+            Node<T> next = x.next(i, mark);
+            while(next != tail && (less(next, node) || next.isDeleted() || (i == 0 && mark[0]))) {
+                if(i == 0 && mark[0])
+                    lastDeleted = next;
+                x = next;
+                next = x.next(i, mark);
+            }
+            preds[i] = x;
+            succs[i] = next;
+        }
+        return lastDeleted;
+    }
+
+    // Move the head's upper level links past the nodes which have been deleted
+    private void restructure() {
+        Node<T> pred = head;
+        for(int i=MAX_LEVEL-1; i>0; ) {
+            Node<T> first = head.next.get(i);
+            if(!first.isDeleted()) {
+                i--;
+                continue;
+            }
+            Node<T> curr = pred.next.get(i);
+            while(curr.isDeleted()) {
+                pred = curr;
+                curr = pred.next.get(i);
+            }
+            if(head.next.compareAndSet(i, first, pred.next.get(i)))
+                i--;
+        }
+    }
+
+    // True if a sorts before b
+    private boolean less(Node<T> a, Node<T> b) {
+        int c = Long.compare(a.priority, b.priority);
+        if(c != 0 || comparator == null)
+            return c < 0;
+        return comparator.compare(a.item, b.item) < 0;
+    }
+
+    // Random height with a 1 in 2 chance of each extra level
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1))) + 1;
+    }
+
+    // Per thread space for the predecessors and successors an add finds, and for reading
+    // a link and its mark together
+    private static final class Scratch {
+        final Node<?>[] preds = new Node<?>[MAX_LEVEL];
+        final Node<?>[] succs = new Node<?>[MAX_LEVEL];
+        final boolean[] mark  = new boolean[1];
+    }
+
+    // Skiplist node. The bottom level link carries the mark which deletes the next
+    // node, and the upper levels are plain references.
+    private static final class Node<T> {
+        final long priority;
+        final T item;
+        final AtomicMarkableReference<Node<T>> next0;
+        final AtomicReferenceArray<Node<T>> next;       // Index 0 unused
+
+        Node(long priority, T item, int height, Node<T> successor) {
+            this.priority = priority;
+            this.item     = item;
+            this.next0    = new AtomicMarkableReference<Node<T>>(successor, false);
+            this.next     = new AtomicReferenceArray<Node<T>>(height);
+            for(int i=1; i<height; i++)
+                next.set(i, successor);
+        }
+
+        // Next node on level i, setting mark[0] to whether it is deleted on the bottom level
+        Node<T> next(int i, boolean[] mark) {
+            if(i == 0)
+                return next0.get(mark);
+            mark[0] = false;
+            return next.get(i);
+        }
+
+        // True once the node after this one is deleted, which means this one is too
+        boolean isDeleted() {
+            return next0.isMarked();
+        }
+    }
+}
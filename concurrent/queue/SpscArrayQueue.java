@@ -0,0 +1,122 @@
+package concurrent.queue;
+import java.util.Collection;
+
+// Bounded FIFO queue for exactly one producer thread and one consumer thread,
+// using lock free synchronization without a single CAS.
+
+// Items live in a ring of power of two size. Each side owns its own cursor, so it
+// only ever has to publish it, with a release store, and never has to CAS it. Each
+// side also caches the other side's cursor, and only re-reads it once the cache says
+// the ring looks full or empty, so most operations touch no shared cache line but
+// their own slot. add() and offer() must only be called from the producer thread,
+// and remove(), poll(), drainTo() and element() only from the consumer thread.
+
+public class SpscArrayQueue<T> implements BoundedQueue<T> {
+
+    // Internal data
+    private final int mask;
+    private final Object[] buffer;
+    private final PaddedCursor producerIndex;               // Caches the consumer index + capacity
+    private final PaddedCursor consumerIndex;               // Caches the producer index
+
+    // Constructor with the minimum capacity, rounded up to a power of two
+    public SpscArrayQueue(int capacity) {
+        if(capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        int size      = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        mask          = size - 1;
+        buffer        = new Object[size];
+        producerIndex = new PaddedCursor();
+        consumerIndex = new PaddedCursor();
+        producerIndex.setCache(size);
+    }
+
+    // Producer only add, throwing if the queue is full
+    @Override
+    public void add(T item) {
+        if(!offer(item))
+            throw new IllegalStateException("SpscArrayQueue is full, capacity " + buffer.length);
+    }
+
+    // Producer only add, returning false if the queue is full
+    @Override
+    public boolean offer(T item) {
+        long p = producerIndex.getPlain();
+
+        // Only look at the consumer index when the cached limit says we're full
+        if(p >= producerIndex.getCache()) {
+            producerIndex.setCache(consumerIndex.getAcquire() + buffer.length);
+            if(p >= producerIndex.getCache())
+                return false;                                         // Queue was full
+        }
+        buffer[(int)p & mask] = item;
+        producerIndex.setRelease(p + 1);                              // Publish the item
+        return true;
+    }
+
+    // Consumer only remove
+    @Override
+    public T remove() {
+        return poll();
+    }
+
+    // Consumer only remove, returning null if the queue is empty
+    @SuppressWarnings("unchecked")
+    @Override
+    public T poll() {
+        long c = consumerIndex.getPlain();
+        if(!available(c))
+            return null;                                              // Queue was empty
+        int index = (int)c & mask;
+        T item = (T)buffer[index];
+        buffer[index] = null;
+        consumerIndex.setRelease(c + 1);                              // Free the slot
+        return item;
+    }
+
+    // Consumer only batch remove, freeing all the slots with a single release store
+    @SuppressWarnings("unchecked")
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        long c = consumerIndex.getPlain();
+        if(c + maxElements > consumerIndex.getCache())
+            consumerIndex.setCache(producerIndex.getAcquire());
+        int n = (int)Math.min(maxElements, consumerIndex.getCache() - c);
+        if(n <= 0)
+            return 0;                                                 // Queue was empty
+        for(int i=0; i<n; i++) {
+            int index = (int)(c + i) & mask;
+            items.add((T)buffer[index]);
+            buffer[index] = null;
+        }
+        consumerIndex.setRelease(c + n);                              // Free the slots
+        return n;
+    }
+
+    // Consumer only element
+    @SuppressWarnings("unchecked")
+    @Override
+    public T element() {
+        long c = consumerIndex.getPlain();
+        return available(c) ? (T)buffer[(int)c & mask] : null;      // null if empty queue
+    }
+
+    // Atomic at the point of reading
+    @Override
+    public boolean isEmpty() {
+        return consumerIndex.get() >= producerIndex.get();
+    }
+
+    // Maximum number of items
+    @Override
+    public int capacity() { return buffer.length; }
+
+    // Whether the item at consumer position c has been published, only looking at
+    // the producer index when the cached one says the queue is empty
+    private boolean available(long c) {
+        if(c < consumerIndex.getCache())
+            return true;
+        consumerIndex.setCache(producerIndex.getAcquire());
+        return c < consumerIndex.getCache();
+    }
+}
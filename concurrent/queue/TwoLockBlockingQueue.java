@@ -0,0 +1,223 @@
+package concurrent.queue;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import concurrent.node.Node;
+
+// Thread-safe FIFO queue implementation using blocking synchronization, with
+// separate locks for adding and removing, and an optional capacity.
+
+// Adds only ever touch the tail and removes only the head, which always points at
+// a dummy node, so each end gets its own lock and producers never wait on consumers.
+// The two ends share nothing but an atomic count, which also orders the link made
+// by an add before a remove can see it. Waiting is done on Conditions, and each
+// wakes a single waiter rather than every one. A thread that finds more room or more
+// items left after its own operation signals the next waiter itself, so wakeups
+// cascade down the waiters, and the other end's lock is only taken to signal when
+// the queue goes from empty or full to not.
+
+public class TwoLockBlockingQueue<T> implements Queue<T> {
+
+    // Internal data
+    private final int capacity;
+    private final AtomicInteger count;
+    private final ReentrantLock putLock;
+    private final ReentrantLock takeLock;
+    private final Condition notFull;
+    private final Condition notEmpty;
+    private Node<T> head;                                    // Guarded by takeLock
+    private Node<T> tail;                                    // Guarded by putLock
+
+    // Basic constructor, with no capacity bound
+    public TwoLockBlockingQueue() {
+        this(Integer.MAX_VALUE);
+    }
+
+    // Constructor with the maximum number of items, after which adds block
+    public TwoLockBlockingQueue(int capacity) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.count    = new AtomicInteger(0);
+        this.putLock  = new ReentrantLock();
+        this.takeLock = new ReentrantLock();
+        this.notFull  = putLock.newCondition();
+        this.notEmpty = takeLock.newCondition();
+        this.head     = this.tail = new Node<T>(null, null);
+    }
+
+    // Thread-safe add, blocking while the queue is full
+    @Override
+    public void add(T item) {
+        Node<T> newNode = new Node<T>(item, null);
+        int c;
+        putLock.lock();
+        try {
+            while(count.get() == capacity)
+                await(notFull);
+            tail.setNext(newNode);
+            tail = newNode;
+            c = count.getAndIncrement();
+            if(c + 1 < capacity)
+                notFull.signal();                            // Still room, wake the next producer
+        } finally {
+            putLock.unlock();
+        }
+        if(c == 0)
+            signal(takeLock, notEmpty);                      // Was empty, wake a consumer
+    }
+
+    // Thread-safe remove, blocking while the queue is empty
+    @Override
+    public T remove() {
+        return dequeue(true);
+    }
+
+    // Thread-safe remove, returning null rather than waiting if the queue is empty
+    @Override
+    public T poll() {
+        return count.get() == 0 ? null : dequeue(false);
+    }
+
+    // Thread-safe element, blocking while the queue is empty
+    @Override
+    public T element() {
+        takeLock.lock();
+        try {
+            while(count.get() == 0)
+                await(notEmpty);
+            notEmpty.signal();                               // Pass on the wakeup, nothing was taken
+            return head.getNext().get();
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    // Thread-safe batch add, blocking while the queue is full. The items are linked up
+    // before taking the put lock, and appended in as few pieces as the capacity allows.
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        Node<T> first = null, last = null;
+        int size = 0;
+        for(T item : items) {
+            Node<T> node = new Node<T>(item, null);
+            if(first == null)
+                first = node;
+            else
+                last.setNext(node);
+            last = node;
+            size++;
+        }
+
+        putLock.lock();
+        try {
+            while(size > 0) {
+                while(count.get() == capacity)
+                    await(notFull);
+
+                // Cut off as much of the chain as there is room for, and append it
+                int n = Math.min(size, capacity - count.get());
+                Node<T> end = first;
+                for(int i=1; i<n; i++)
+                    end = end.getNext();
+                Node<T> rest = end.getNext();
+                end.setNext(null);
+                tail.setNext(first);
+                tail = end;
+                int c = count.getAndAdd(n);
+                if(c + n < capacity)
+                    notFull.signal();                        // Still room, wake the next producer
+                if(c == 0)
+                    signal(takeLock, notEmpty);              // Was empty, wake a consumer
+                first = rest;
+                size -= n;
+            }
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    // Thread-safe batch remove, which doesn't wait if the queue is empty. Up to
+    // maxElements nodes are taken off the head under one hold of the take lock.
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        int n, c;
+        takeLock.lock();
+        try {
+            n = Math.min(maxElements, count.get());
+            if(n <= 0)
+                return 0;
+            for(int i=0; i<n; i++) {
+                Node<T> first = head.getNext();
+                head = first;                                // first is the new dummy
+                items.add(first.get());
+                first.set(null);
+            }
+            c = count.getAndAdd(-n);
+            if(c > n)
+                notEmpty.signal();                           // Still items, wake the next consumer
+        } finally {
+            takeLock.unlock();
+        }
+        if(c == capacity)
+            signal(putLock, notFull);                        // Was full, wake a producer
+        return n;
+    }
+
+    // Atomic at the point of reading
+    @Override
+    public boolean isEmpty() {
+        return count.get() == 0;
+    }
+
+    // Current number of items
+    public int size() { return count.get(); }
+
+    // Take the first item, waiting for one if wait is set and otherwise returning null
+    private T dequeue(boolean wait) {
+        T item;
+        int c;
+        takeLock.lock();
+        try {
+            while(count.get() == 0) {
+                if(!wait)
+                    return null;                             // Emptied since the caller looked
+                await(notEmpty);
+            }
+            Node<T> first = head.getNext();
+            head = first;                                    // first is the new dummy
+            item = first.get();
+            first.set(null);
+            c = count.getAndDecrement();
+            if(c > 1)
+                notEmpty.signal();                           // Still items, wake the next consumer
+        } finally {
+            takeLock.unlock();
+        }
+        if(c == capacity)
+            signal(putLock, notFull);                        // Was full, wake a producer
+        return item;
+    }
+
+    // Wait on a condition, treating an interrupt the way BlockingQueue does
+    private static void await(Condition condition) {
+        try {
+            condition.await();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread was interrupted while waiting on the queue", e);
+        }
+    }
+
+    // Wake one thread waiting on a condition of the other end's lock
+    private static void signal(ReentrantLock lock, Condition condition) {
+        lock.lock();
+        try {
+            condition.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package concurrent.set;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Thread-safe set implementation using flat combining over a single lock
+
+// Like CoarseBlockingSet every operation runs under one lock, but instead of each
+// thread taking it in turn, threads publish their operation in their own
+// publication record and whichever thread gets the lock applies every pending
+// operation at once. Items are kept sorted by hash code, so the combiner sorts the
+// batch by hash and merges it into the list in a single traversal, rather than
+// walking the list once per operation.
+
+// Each thread's record is added to the publication list the first time it uses the
+// set and stays there, so records of finished threads are just skipped over.
+
+public class FlatCombiningSet<T> implements Set<T> {
+
+    // Publication record operations
+    private static final int ADD      = 0;
+    private static final int REMOVE   = 1;
+    private static final int CONTAINS = 2;
+
+    // Internal data
+    private final ReentrantLock lock;
+    private final AtomicReference<Record<T>> records;
+    private final ThreadLocal<Record<T>> myRecord;
+    private final Entry<T> head;                             // Sentinel, only touched by the combiner
+    private Record<T>[] batch;                               // Reused by every combining pass
+    private volatile int size;
+
+    // Basic constructor
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public FlatCombiningSet() {
+        lock     = new ReentrantLock();
+        records  = new AtomicReference<Record<T>>(null);
+        myRecord = ThreadLocal.withInitial(this::register);
+        head     = new Entry<T>(Integer.MIN_VALUE, null, null);
+        batch    = new Record[16];
+        size     = 0;
+    }
+
+    // Thread-safe add
+    @Override
+    public boolean add(T item) {
+        return apply(ADD, item);
+    }
+
+    // Thread-safe remove
+    @Override
+    public boolean remove(T item) {
+        return apply(REMOVE, item);
+    }
+
+    // Thread-safe search
+    @Override
+    public boolean contains(T item) {
+        return apply(CONTAINS, item);
+    }
+
+    // Thread-safe empty check - Atomic at the point of reading
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Thread-safe size check - Atomic at the point of reading
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Publish the operation, then wait until a combiner has applied it,
+    // becoming the combiner whenever the lock is free
+    private boolean apply(int op, T item) {
+        Record<T> r = myRecord.get();
+        r.op      = op;
+        r.item    = item;
+        r.hash    = Objects.hashCode(item);
+        r.pending = true;
+        for(int spins = 1; r.pending; spins++) {
+            if(lock.tryLock()) {
+                try {
+                    combine();
+                } finally {
+                    lock.unlock();
+                }
+            } else if(spins % 64 == 0) {
+                Thread.yield();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        r.item = null;
+        return r.result;
+    }
+
+    // Gather every pending operation, sort them by hash, and merge them into the
+    // list in one traversal. Operations on the same hash are applied in turn.
+    private void combine() {
+        int n = 0;
+        for(Record<T> r = records.get(); r != null; r = r.next) {
+            if(!r.pending)
+                continue;
+            if(n == batch.length)
+                batch = Arrays.copyOf(batch, n * 2);
+
+            // Insertion sort by hash, as a batch is at most one record per thread
+            int i = n++;
+            while(i > 0 && batch[i-1].hash > r.hash) {
+                batch[i] = batch[i-1];
+                i--;
+            }
+            batch[i] = r;
+        }
+
+        // Merge the batch into the list, where prev is always before every entry
+        // with the current operation's hash
+        Entry<T> prev = head;
+        int newSize   = size;
+        for(int i=0; i<n; i++) {
+            Record<T> r = batch[i];
+            batch[i]    = null;
+            while(prev.next != null && prev.next.hash < r.hash)
+                prev = prev.next;
+
+            // Look for the item among the entries with the same hash
+            Entry<T> before = prev;
+            Entry<T> curr   = prev.next;
+            while(curr != null && curr.hash == r.hash && !Objects.equals(curr.item, r.item)) {
+                before = curr;
+                curr   = curr.next;
+            }
+            boolean found = curr != null && curr.hash == r.hash;
+
+            if(r.op == ADD) {
+                if(!found) {
+                    prev.next = new Entry<T>(r.hash, r.item, prev.next);
+                    newSize++;
+                }
+                r.result = !found;
+            } else if(r.op == REMOVE) {
+                if(found) {
+                    before.next = curr.next;
+                    newSize--;
+                }
+                r.result = found;
+            } else {
+                r.result = found;
+            }
+            r.pending = false;
+        }
+        size = newSize;
+    }
+
+    // Add a new record for the calling thread to the head of the publication list
+    private Record<T> register() {
+        Record<T> r = new Record<T>();
+        do {
+            r.next = records.get();
+        } while(!records.compareAndSet(r.next, r));
+        return r;
+    }
+
+    // A thread's publication record. The owner writes op, item and hash before
+    // setting pending, and the combiner writes result before clearing it.
+    private static final class Record<T> {
+        volatile boolean pending;
+        int op;
+        T item;
+        int hash;
+        boolean result;
+        Record<T> next;                                      // Publication list
+    }
+
+    // Set entry, sorted by hash code
+    private static final class Entry<T> {
+        final int hash;
+        final T item;
+        Entry<T> next;
+
+        Entry(int hash, T item, Entry<T> next) {
+            this.hash = hash;
+            this.item = item;
+            this.next = next;
+        }
+    }
+}
@@ -6,23 +6,18 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 public class SetSimulation {
 
-    public static void main(String[] args) {
+    // Constants
+    private static final int DEFAULT_THREADS    = 4;
+    private static final int NUM_UNIQUE_OBJECTS = 500;
+    private static final int DEADLOCK_TIMEOUT   = 5000;
+    private static int numThreads;
 
-        // Constants
-        final int NUM_THREADS        = 4;
-        final int NUM_UNIQUE_OBJECTS = 500;
-        final int DEADLOCK_TIMEOUT   = 5000;
+    public static void main(String[] args) {
 
-        // Local vars for timing and input params
-        long timeBefore, timeAfter;
-        boolean deadlocked = false;
+        // Input params
         int k = Integer.parseInt(args[0]);
         int m = Integer.parseInt(args[1]);
-
-        // Initialise two four-thread arrays, to test the blocking and lock free implementations
-        CoarseBlockingSet<Object> coarseBlockingSet = new CoarseBlockingSet<Object>();
-        FineBlockingSet<Object> fineBlockingSet     = new FineBlockingSet<Object>();
-        LockFreeSet<Object> lockFreeSet             = new LockFreeSet<Object>();
+        numThreads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
 
         // Initialise a pool discrete pool of objects for simulating set usage
         Object[] uniqueObjects = new Object[NUM_UNIQUE_OBJECTS];
@@ -30,92 +25,35 @@ public class SetSimulation {
             uniqueObjects[i] = new Object();
         }
 
-        // Initialise the thread arrays and results objects
-        SimResults rA = new SimResults("Coarse Blocking Set");
-        SimResults rB = new SimResults("Fine Blocking Set");
-        SimResults rC = new SimResults("Lock Free Set");
-        Thread[] tA   = new Thread[NUM_THREADS];
-        Thread[] tB   = new Thread[NUM_THREADS];
-        Thread[] tC   = new Thread[NUM_THREADS];
-
-        // Instantiate the threads in each thread array
-        for (int i = 0; i < NUM_THREADS; i++) {
-            tA[i] = new Thread(new SetTester<Object>(coarseBlockingSet, k, m, rA, uniqueObjects));
-            tB[i] = new Thread(new SetTester<Object>(fineBlockingSet, k, m, rB, uniqueObjects));
-            tC[i] = new Thread(new SetTester<Object>(lockFreeSet, k, m, rC, uniqueObjects));
-        }
-
         // Print starting info
-        System.out.printf("%d threads\n", NUM_THREADS);
+        System.out.printf("%d threads\n", numThreads);
         System.out.printf("%d operations per thread\n", m);
         System.out.printf("%d%% chance of search\n", k);
         System.out.printf("%d%% chance of insertion\n", (100-k)/2);
         System.out.printf("%d%% chance of retrieval\n\n", (100-k)/2);
 
-        // Time the execution of all threads in tA
-        timeBefore = System.currentTimeMillis();
-        for (Thread t : tA)
-            t.start();
-        for (Thread t : tA) {
-            try {
-                if(!deadlocked)
-                    t.join(DEADLOCK_TIMEOUT);
-                if (t.isAlive()) {
-                    deadlocked = true;
-                    t.interrupt();
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
-
-        if(!deadlocked) {
-            // Stop timer and print logs
-            timeAfter = System.currentTimeMillis();
-            rA.actualSize.set(coarseBlockingSet.size());
-            rA.expectedSize.addAndGet(rA.successfulInsertions.get() - rA.successfulRetrievals.get());
-            rA.executionTime.set((int)(timeAfter - timeBefore));
-            rA.printInfo();
-        } else {
-            deadlocked = false;
-            System.out.printf("Deadlock detected, forcing continuation\n\n");
-        }
-
-        // Time execution of all threads in tB
-        timeBefore = System.currentTimeMillis();
-        for (Thread t : tB)
-            t.start();
-        for (Thread t : tB) {
-            try {
-                if(!deadlocked)
-                    t.join(DEADLOCK_TIMEOUT);
-                if (t.isAlive()) {
-                    deadlocked = true;
-                    t.interrupt();
-                }
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
-        }
+        // Time each set implementation independently
+        simulate("Coarse Blocking Set", new CoarseBlockingSet<Object>(), k, m, uniqueObjects);
+        simulate("Fine Blocking Set", new FineBlockingSet<Object>(), k, m, uniqueObjects);
+        simulate("Lock Free Set", new LockFreeSet<Object>(), k, m, uniqueObjects);
+        simulate("Flat Combining Set", new FlatCombiningSet<Object>(), k, m, uniqueObjects);
+    }
 
-        if(!deadlocked) {
-            // Stop timer and print logs
-            timeAfter = System.currentTimeMillis();
-            rB.actualSize.set(fineBlockingSet.size());
-            rB.expectedSize.addAndGet(rB.successfulInsertions.get() - rB.successfulRetrievals.get());
-            rB.executionTime.set((int)(timeAfter - timeBefore));
-            rB.printInfo();
-        } else {
-            deadlocked = false;
-            System.out.printf("Deadlock detected, forcing continuation\n\n");
-        }
+    // Run numThreads threads on one set, then print the results
+    private static void simulate(String name, Set<Object> set, int k, int m, Object[] uniqueObjects) {
 
-        // Time the execution of all threads in tC
-        timeBefore = System.currentTimeMillis();
-        timeBefore = System.currentTimeMillis();
-        for (Thread t : tC)
+        // Initialise the threads, each with their own tester
+        boolean deadlocked = false;
+        SimResults results = new SimResults(name);
+        Thread[] threads   = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++)
+            threads[i] = new Thread(new SetTester<Object>(set, k, m, results, uniqueObjects));
+
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for (Thread t : threads)
             t.start();
-        for (Thread t : tC) {
+        for (Thread t : threads) {
             try {
                 if(!deadlocked)
                     t.join(DEADLOCK_TIMEOUT);
@@ -130,13 +68,12 @@ public class SetSimulation {
 
         if(!deadlocked) {
             // Stop timer and print logs
-            timeAfter = System.currentTimeMillis();
-            rC.actualSize.set(lockFreeSet.size());
-            rC.expectedSize.addAndGet(rC.successfulInsertions.get() - rC.successfulRetrievals.get());
-            rC.executionTime.set((int)(timeAfter - timeBefore));
-            rC.printInfo();
+            long timeAfter = System.currentTimeMillis();
+            results.actualSize.set(set.size());
+            results.expectedSize.addAndGet(results.successfulInsertions.get() - results.successfulRetrievals.get());
+            results.executionTime.set((int)(timeAfter - timeBefore));
+            results.printInfo();
         } else {
-            deadlocked = false;
             System.out.printf("Deadlock detected, forcing continuation\n\n");
         }
     }
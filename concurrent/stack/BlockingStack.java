@@ -1,4 +1,8 @@
 package concurrent.stack;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import concurrent.node.Node;
 
 // Thread-safe stack implementation using blocking synchronization
@@ -30,4 +34,53 @@ public class BlockingStack<T> implements Stack<T> {
         Node<T> n = new Node<T>(item, top);
         top       = n;
     }
-}
\ No newline at end of file
+
+    // Thread-safe batch push, building the chain outside the monitor
+    @Override
+    public void pushAll(Collection<? extends T> items) {
+        Node<T> first = null, last = null;
+        for(T item : items) {
+            first = new Node<T>(item, first);
+            if(last == null) last = first;
+        }
+        if(first == null) return;
+
+        synchronized(this) {
+            last.setNext(top);
+            top = first;
+        }
+    }
+
+    // Thread-safe batch pop, detaching the whole chain in one go
+    @Override
+    public List<T> popAll() {
+        Node<T> chain;
+        synchronized(this) {
+            chain = top;
+            top   = null;
+        }
+        return toList(chain, Integer.MAX_VALUE);
+    }
+
+    // Thread-safe batch pop of up to n items
+    @Override
+    public List<T> popN(int n) {
+        Node<T> chain;
+        synchronized(this) {
+            chain = top;
+            Node<T> cut = top;
+            for(int i=0; i<n && cut != null; i++)
+                cut = cut.getNext();
+            top = cut;
+        }
+        return toList(chain, n);
+    }
+
+    // Collect up to n items from a detached chain, in pop order
+    private static <T> List<T> toList(Node<T> chain, int n) {
+        List<T> items = new ArrayList<T>();
+        for(Node<T> node = chain; node != null && items.size() < n; node = node.getNext())
+            items.add(node.get());
+        return items;
+    }
+}
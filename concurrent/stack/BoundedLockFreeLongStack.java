@@ -0,0 +1,89 @@
+package concurrent.stack;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded thread-safe stack of primitive longs using lock free synchronization,
+// laid out exactly like BoundedLockFreeStack, for pools that hand out long handles
+// without boxing them. pop() returns EMPTY when there is nothing to pop, so EMPTY
+// itself can't be pushed.
+
+public class BoundedLockFreeLongStack {
+
+    // Internal data
+    public static final long EMPTY = Long.MIN_VALUE;
+    private static final long INDEX_MASK = 0xffffffffL;
+    private final long[] values;
+    private final int[] next;                                 // Written before the slot is pushed
+    private final AtomicLong top;                            // Packed head of the values
+    private final AtomicLong free;                           // Packed head of the free slots
+
+    // Constructor with the maximum number of values
+    public BoundedLockFreeLongStack(int capacity) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        // Every slot starts on the free stack, in order
+        values = new long[capacity];
+        next   = new int[capacity];
+        for(int i=0; i<capacity; i++)
+            next[i] = i + 1 < capacity ? i + 1 : -1;
+        top    = new AtomicLong(0);
+        free   = new AtomicLong(1);
+    }
+
+    // Thread-safe pop, returning EMPTY if the stack is empty
+    public long pop() {
+        int i = popIndex(top);
+        if(i < 0) return EMPTY;
+        long value = values[i];
+        pushIndex(free, i);
+        return value;
+    }
+
+    // Thread-safe push, throwing if the stack is full
+    public void push(long value) {
+        if(!tryPush(value))
+            throw new IllegalStateException("BoundedLockFreeLongStack is full, capacity " + values.length);
+    }
+
+    // Thread-safe push, returning false if the stack is full
+    public boolean tryPush(long value) {
+        if(value == EMPTY)
+            throw new IllegalArgumentException("Can't push EMPTY");
+        int i = popIndex(free);
+        if(i < 0) return false;                              // Return false if stack full
+        values[i] = value;
+        pushIndex(top, i);
+        return true;
+    }
+
+    // Maximum number of values
+    public int capacity() { return values.length; }
+
+    // Pop a slot index off the stack with the given head, or -1 if it's empty. The
+    // read of next[i] may be stale, but then the version has moved on and the CAS fails.
+    private int popIndex(AtomicLong head) {
+        long h, newHead;
+        int i;
+        do {
+            h = head.get();
+            if((i = (int)(h & INDEX_MASK) - 1) < 0)
+                return -1;
+            newHead = pack(h, next[i]);
+        } while(!head.compareAndSet(h, newHead));
+        return i;
+    }
+
+    // Push slot index i onto the stack with the given head
+    private void pushIndex(AtomicLong head, int i) {
+        long h;
+        do {
+            h = head.get();
+            next[i] = (int)(h & INDEX_MASK) - 1;
+        } while(!head.compareAndSet(h, pack(h, i)));
+    }
+
+    // Head pointing at slot i, one version on from h
+    private static long pack(long h, int i) {
+        return (((h >>> 32) + 1) << 32) | (i + 1);
+    }
+}
@@ -0,0 +1,96 @@
+package concurrent.stack;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded thread-safe stack implementation using lock free synchronization, over a
+// fixed arena of slots so that no operation allocates.
+
+// The arena holds capacity slots, each with an item and the index of the next slot
+// down. Slots are threaded onto one of two Treiber stacks of indexes, the stack of
+// items and the stack of free slots. A push takes a free slot, writes its item and
+// pushes the slot onto the items, and a pop does the opposite. As slots are reused
+// the heads can't be plain indexes without ABA, so each head is a long packing a
+// version in the top 32 bits with the slot index + 1 in the bottom 32 bits, 0 meaning
+// empty, and every CAS bumps the version.
+
+public class BoundedLockFreeStack<T> implements Stack<T> {
+
+    // Internal data
+    private static final long INDEX_MASK = 0xffffffffL;
+    private final Object[] items;
+    private final int[] next;                                 // Written before the slot is pushed
+    private final AtomicLong top;                            // Packed head of the items
+    private final AtomicLong free;                           // Packed head of the free slots
+
+    // Constructor with the maximum number of items
+    public BoundedLockFreeStack(int capacity) {
+        if(capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        // Every slot starts on the free stack, in order
+        items = new Object[capacity];
+        next  = new int[capacity];
+        for(int i=0; i<capacity; i++)
+            next[i] = i + 1 < capacity ? i + 1 : -1;
+        top   = new AtomicLong(0);
+        free  = new AtomicLong(1);
+    }
+
+    // Thread-safe pop
+    @SuppressWarnings("unchecked")
+    @Override
+    public T pop() {
+        int i = popIndex(top);
+        if(i < 0) return null;                               // Return null if stack empty
+        T item = (T)items[i];
+        items[i] = null;
+        pushIndex(free, i);
+        return item;
+    }
+
+    // Thread-safe push, throwing if the stack is full
+    @Override
+    public void push(T item) {
+        if(!tryPush(item))
+            throw new IllegalStateException("BoundedLockFreeStack is full, capacity " + items.length);
+    }
+
+    // Thread-safe push, returning false if the stack is full
+    public boolean tryPush(T item) {
+        int i = popIndex(free);
+        if(i < 0) return false;                              // Return false if stack full
+        items[i] = item;
+        pushIndex(top, i);
+        return true;
+    }
+
+    // Maximum number of items
+    public int capacity() { return items.length; }
+
+    // Pop a slot index off the stack with the given head, or -1 if it's empty. The
+    // read of next[i] may be stale, but then the version has moved on and the CAS fails.
+    private int popIndex(AtomicLong head) {
+        long h, newHead;
+        int i;
+        do {
+            h = head.get();
+            if((i = (int)(h & INDEX_MASK) - 1) < 0)
+                return -1;
+            newHead = pack(h, next[i]);
+        } while(!head.compareAndSet(h, newHead));
+        return i;
+    }
+
+    // Push slot index i onto the stack with the given head
+    private void pushIndex(AtomicLong head, int i) {
+        long h;
+        do {
+            h = head.get();
+            next[i] = (int)(h & INDEX_MASK) - 1;
+        } while(!head.compareAndSet(h, pack(h, i)));
+    }
+
+    // Head pointing at slot i, one version on from h
+    private static long pack(long h, int i) {
+        return (((h >>> 32) + 1) << 32) | (i + 1);
+    }
+}
@@ -0,0 +1,215 @@
+package concurrent.stack;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicStampedReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import concurrent.node.Node;
+
+// Thread-safe stack implementation using lock free synchronization, with an
+// elimination array to back off to when the top of the stack is contended.
+
+// A push followed by a pop leaves the stack unchanged, so a concurrent push and
+// pop can simply hand the item over without touching the top at all. When a CAS
+// on the top fails, the thread visits a random exchanger in the elimination array
+// and waits briefly for a partner of the opposite kind, then goes back to the top
+// if none turns up. The part of the array in use adapts to contention: it widens
+// whenever a thread meets someone, and narrows whenever a thread times out alone.
+// Every node is freshly allocated, so the GC rules out ABA on the top.
+
+public class EliminationBackoffStack<T> implements Stack<T> {
+
+    // Internal data
+    private static final Object POP       = new Object();   // Offered by pops to the exchangers
+    private static final Object TIMEOUT   = new Object();   // Returned by an exchange nobody joined
+    private static final long WAIT_NANOS  = 5000;
+    private final AtomicReference<Node<T>> top;
+    private final Exchanger[] exchangers;
+    private volatile int width;                              // Number of exchangers in use
+    private final LongAdder eliminated;
+    private final LongAdder stackOps;
+
+    // Basic constructor, with one exchanger per processor
+    public EliminationBackoffStack() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    // Constructor with the maximum width of the elimination array
+    public EliminationBackoffStack(int capacity) {
+        top        = new AtomicReference<Node<T>>(null);
+        exchangers = new Exchanger[Math.max(1, capacity)];
+        for(int i=0; i<exchangers.length; i++)
+            exchangers[i] = new Exchanger();
+        width      = 1;
+        eliminated = new LongAdder();
+        stackOps   = new LongAdder();
+    }
+
+    // Thread-safe pop
+    @SuppressWarnings("unchecked")
+    @Override
+    public T pop() {
+        while(true) {
+            Node<T> expected = top.get();
+            if(expected == null) return null;                    // Return null if stack empty
+            if(top.compareAndSet(expected, expected.getNext())) {
+                stackOps.increment();
+                return expected.get();
+            }
+
+            // Back off to the elimination array, and take the item of any push met there
+            Object other = eliminate(POP);
+            if(other != POP && other != TIMEOUT) {
+                eliminated.increment();
+                return (T)other;
+            }
+        }
+    }
+
+    // Thread-safe push
+    @Override
+    public void push(T item) {
+        Node<T> newTop = new Node<T>(item, null);
+        while(true) {
+            Node<T> expected = top.get();
+            newTop.setNext(expected);
+            if(top.compareAndSet(expected, newTop)) {
+                stackOps.increment();
+                return;
+            }
+
+            // Back off to the elimination array, and hand the item to any pop met there
+            if(eliminate(item) == POP) {
+                eliminated.increment();
+                return;
+            }
+        }
+    }
+
+    // Thread-safe batch push, linking a chain built up front with a single CAS
+    @Override
+    public void pushAll(Collection<? extends T> items) {
+        Node<T> first = null, last = null;
+        int numItems = 0;
+        for(T item : items) {
+            first = new Node<T>(item, first);
+            if(last == null) last = first;
+            numItems++;
+        }
+        if(first == null) return;
+
+        // Use CAS logic to atomically link the whole chain onto the top of the stack
+        Node<T> expected;
+        do {
+            last.setNext(expected = top.get());
+        } while(!top.compareAndSet(expected, first));
+        stackOps.add(numItems);
+    }
+
+    // Thread-safe batch pop, detaching the whole chain with one swap
+    @Override
+    public List<T> popAll() {
+        List<T> items = toList(top.getAndSet(null), Integer.MAX_VALUE);
+        stackOps.add(items.size());
+        return items;
+    }
+
+    // Thread-safe batch pop of up to n items, detaching them with a single CAS
+    @Override
+    public List<T> popN(int n) {
+        Node<T> expected, cut;
+
+        // Use CAS logic to atomically move the top of the stack past n nodes
+        do {
+            if((expected = top.get()) == null) return new ArrayList<T>(); // Return nothing if stack empty
+            cut = expected;
+            for(int i=0; i<n && cut != null; i++)
+                cut = cut.getNext();
+        } while(!top.compareAndSet(expected, cut));
+
+        List<T> items = toList(expected, n);
+        stackOps.add(items.size());
+        return items;
+    }
+
+    // Collect up to n items from a detached chain, in pop order
+    private static <T> List<T> toList(Node<T> chain, int n) {
+        List<T> items = new ArrayList<T>();
+        for(Node<T> node = chain; node != null && items.size() < n; node = node.getNext())
+            items.add(node.get());
+        return items;
+    }
+
+    // Number of operations which cancelled out in the elimination array
+    public long getEliminatedCount() { return eliminated.sum(); }
+
+    // Number of operations which went to the top of the stack
+    public long getStackCount() { return stackOps.sum(); }
+
+    // Offer value at a random exchanger in use, adapting the width to what happened.
+    // Updates to the width can race, but it's only a hint so a lost update is harmless.
+    private Object eliminate(Object value) {
+        int w = width;
+        Object other = exchangers[ThreadLocalRandom.current().nextInt(w)].exchange(value, WAIT_NANOS);
+        if(other == TIMEOUT) {
+            if(w > 1) width = w - 1;                             // Nobody came, narrow the array
+        } else if(w < exchangers.length) {
+            width = w + 1;                                       // Met someone, widen the array
+        }
+        return other;
+    }
+
+    // Lock free exchanger, where the stamp holds the state of the slot
+    private static final class Exchanger {
+
+        // Slot states
+        private static final int EMPTY   = 0;
+        private static final int WAITING = 1;
+        private static final int BUSY    = 2;
+        private final AtomicStampedReference<Object> slot = new AtomicStampedReference<Object>(null, EMPTY);
+
+        // Swap myItem with another thread's item, or return TIMEOUT if none arrives in time
+        Object exchange(Object myItem, long timeoutNanos) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            int[] stampHolder = new int[1];
+            while(System.nanoTime() < deadline) {
+                Object yourItem = slot.get(stampHolder);
+                switch(stampHolder[0]) {
+                    case EMPTY:
+                        // Wait in the slot for a partner to swap in their item
+                        if(slot.compareAndSet(yourItem, myItem, EMPTY, WAITING)) {
+                            while(System.nanoTime() < deadline) {
+                                yourItem = slot.get(stampHolder);
+                                if(stampHolder[0] == BUSY) {
+                                    slot.set(null, EMPTY);
+                                    return yourItem;
+                                }
+                                Thread.onSpinWait();
+                            }
+
+                            // Withdraw the offer, unless a partner arrived just in time
+                            if(slot.compareAndSet(myItem, null, WAITING, EMPTY))
+                                return TIMEOUT;
+                            yourItem = slot.getReference();
+                            slot.set(null, EMPTY);
+                            return yourItem;
+                        }
+                        break;
+                    case WAITING:
+                        // Swap with the waiting thread
+                        if(slot.compareAndSet(yourItem, myItem, WAITING, BUSY))
+                            return yourItem;
+                        break;
+                    default:
+                        // Two other threads are mid exchange
+                        Thread.onSpinWait();
+                        break;
+                }
+            }
+            return TIMEOUT;
+        }
+    }
+}
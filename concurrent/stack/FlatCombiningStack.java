@@ -0,0 +1,129 @@
+package concurrent.stack;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+import concurrent.node.Node;
+
+// Thread-safe stack implementation using flat combining over a single lock
+
+// Rather than every thread taking the lock in turn, each thread publishes its
+// operation in its own publication record and then tries the lock. Whichever
+// thread gets it becomes the combiner, and applies every pending operation in one
+// pass while the others wait on their own record, so the lock and the top of the
+// stack stay in one cache for a whole batch. A push and a pop met in the same pass
+// cancel out, with the item handed straight to the pop without touching the stack.
+
+// Each thread's record is added to the publication list the first time it uses the
+// stack and stays there, so records of finished threads are just skipped over.
+
+public class FlatCombiningStack<T> implements Stack<T> {
+
+    // Publication record operations
+    private static final int PUSH = 0;
+    private static final int POP  = 1;
+
+    // Internal data
+    private final ReentrantLock lock;
+    private final AtomicReference<Record<T>> records;
+    private final ThreadLocal<Record<T>> myRecord;
+    private Node<T> top;                                     // Only touched by the combiner
+
+    // Basic constructor
+    public FlatCombiningStack() {
+        lock     = new ReentrantLock();
+        records  = new AtomicReference<Record<T>>(null);
+        myRecord = ThreadLocal.withInitial(this::register);
+        top      = null;
+    }
+
+    // Thread-safe pop
+    @Override
+    public T pop() {
+        Record<T> r = myRecord.get();
+        r.op = POP;
+        return apply(r);
+    }
+
+    // Thread-safe push
+    @Override
+    public void push(T item) {
+        Record<T> r = myRecord.get();
+        r.op   = PUSH;
+        r.item = item;
+        apply(r);
+    }
+
+    // Publish the operation in r, then wait until a combiner has applied it,
+    // becoming the combiner whenever the lock is free
+    private T apply(Record<T> r) {
+        r.pending = true;
+        for(int spins = 1; r.pending; spins++) {
+            if(lock.tryLock()) {
+                try {
+                    combine();
+                } finally {
+                    lock.unlock();
+                }
+            } else if(spins % 64 == 0) {
+                Thread.yield();
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        T result = r.result;
+        r.item   = null;
+        r.result = null;
+        return result;
+    }
+
+    // Apply every pending operation in one pass over the publication list. Pops
+    // wait in a chain until a push turns up, and only touch the stack at the end.
+    private void combine() {
+        Record<T> waitingPops = null;
+        for(Record<T> r = records.get(); r != null; r = r.next) {
+            if(!r.pending)
+                continue;
+            if(r.op == POP) {
+                r.nextWaiting = waitingPops;
+                waitingPops   = r;
+            } else if(waitingPops != null) {                 // Hand the item to a waiting pop
+                waitingPops.result  = r.item;
+                waitingPops.pending = false;
+                waitingPops         = waitingPops.nextWaiting;
+                r.pending = false;
+            } else {                                         // Push onto the stack
+                top = new Node<T>(r.item, top);
+                r.pending = false;
+            }
+        }
+
+        // Pops nobody pushed to take from the stack, or get null if it's empty
+        for(; waitingPops != null; waitingPops = waitingPops.nextWaiting) {
+            if(top != null) {
+                waitingPops.result = top.get();
+                top = top.getNext();
+            }
+            waitingPops.pending = false;
+        }
+    }
+
+    // Add a new record for the calling thread to the head of the publication list
+    private Record<T> register() {
+        Record<T> r = new Record<T>();
+        do {
+            r.next = records.get();
+        } while(!records.compareAndSet(r.next, r));
+        return r;
+    }
+
+    // A thread's publication record. The owner writes op and item before setting
+    // pending, and the combiner writes result before clearing it.
+    private static final class Record<T> {
+        volatile boolean pending;
+        int op;
+        T item;
+        T result;
+        Record<T> next;                                      // Publication list
+        Record<T> nextWaiting;                               // Pops waiting in a combining pass
+    }
+}
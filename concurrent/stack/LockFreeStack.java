@@ -1,30 +1,37 @@
 package concurrent.stack;
-import java.util.concurrent.atomic.AtomicStampedReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 import concurrent.node.Node;
 
 // Thread-safe stack implementation using lock free synchronization
 
+// Every push allocates a fresh node and nodes are never reused, so while a thread
+// still holds a reference to a node the GC can't recycle it, and the top can never
+// return to an old node behind a thread's back. That rules out ABA without a stamp,
+// so a plain reference CAS is enough and nothing but the node itself is allocated.
+
 public class LockFreeStack<T> implements Stack<T> {
 
     // Internal data
-    private AtomicStampedReference<Node<T>> top;
+    private AtomicReference<Node<T>> top;
 
     // Basic constructor
     public LockFreeStack() {
-        top = new AtomicStampedReference<Node<T>>(null, 0);
+        top = new AtomicReference<Node<T>>(null);
     }
 
     // Thread-safe pop
     @Override
     public T pop() {
-        int[] stampHolder = new int[1];
         Node<T> expected;
-        if((expected = top.get(stampHolder)) == null) { return null; } // Return null if stack empty
-        
-        // Use CAS logic to atomically update the top of the stack and stamp
-        while(!top.compareAndSet(expected, expected.getNext(), stampHolder[0], (stampHolder[0]+1) % Integer.MAX_VALUE))
-            if((expected = top.get(stampHolder)) == null) return null; // Return null if stack empty
+
+        // Use CAS logic to atomically update the top of the stack
+        do {
+            if((expected = top.get()) == null) return null; // Return null if stack empty
+        } while(!top.compareAndSet(expected, expected.getNext()));
 
         return expected.get();
     }
@@ -32,12 +39,61 @@ public class LockFreeStack<T> implements Stack<T> {
     // Thread-safe push
     @Override
     public void push(T o) {
-        int[] stampHolder = new int[1];
         Node<T> expected;
-        Node<T> newTop = new Node<T>(o, (expected = top.get(stampHolder)));
+        Node<T> newTop = new Node<T>(o, null);
+
+        // Use CAS logic to atomically update the top of the stack, reusing the new node
+        do {
+            newTop.setNext(expected = top.get());
+        } while(!top.compareAndSet(expected, newTop));
+    }
+
+    // Thread-safe batch push, linking a chain built up front with a single CAS
+    @Override
+    public void pushAll(Collection<? extends T> items) {
+        Node<T> first = null, last = null;
+        for(T item : items) {
+            first = new Node<T>(item, first);
+            if(last == null) last = first;
+        }
+        if(first == null) return;
+
+        // Use CAS logic to atomically link the whole chain onto the top of the stack
+        Node<T> expected;
+        do {
+            last.setNext(expected = top.get());
+        } while(!top.compareAndSet(expected, first));
+    }
+
+    // Thread-safe batch pop, detaching the whole chain with one swap
+    @Override
+    public List<T> popAll() {
+        List<T> items = toList(top.getAndSet(null), Integer.MAX_VALUE);
+        return items;
+    }
+
+    // Thread-safe batch pop of up to n items, detaching them with a single CAS
+    @Override
+    public List<T> popN(int n) {
+        Node<T> expected, cut;
+
+        // Use CAS logic to atomically move the top of the stack past n nodes
+        do {
+            if((expected = top.get()) == null) return new ArrayList<T>(); // Return nothing if stack empty
+            cut = expected;
+            for(int i=0; i<n && cut != null; i++)
+                cut = cut.getNext();
+        } while(!top.compareAndSet(expected, cut));
+
+        List<T> items = toList(expected, n);
+        return items;
+    }
 
-        // Use CAS logic to atomically update the top of the stack and stamp
-        while(!top.compareAndSet(expected, newTop, stampHolder[0], (stampHolder[0]+1) % Integer.MAX_VALUE))
-            newTop = new Node<T>(o, (expected = top.get(stampHolder)));
+    // Collect up to n items from a detached chain, in pop order
+    private static <T> List<T> toList(Node<T> chain, int n) {
+        List<T> items = new ArrayList<T>();
+        for(Node<T> node = chain; node != null && items.size() < n; node = node.getNext())
+            items.add(node.get());
+        return items;
     }
-}
\ No newline at end of file
+}
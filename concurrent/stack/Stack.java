@@ -1,7 +1,35 @@
 package concurrent.stack;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
-// Generic stack interface
+// Generic stack interface. The batch operations default to one push or pop per
+// item, and implementations override them to take the contended path once per batch.
 public interface Stack<T> {
     T pop();
     void push(T item);
-}
\ No newline at end of file
+
+    // Push every item in iteration order, so the last item ends up on top
+    default void pushAll(Collection<? extends T> items) {
+        for(T item : items)
+            push(item);
+    }
+
+    // Pop every item, returned in the order they were popped
+    default List<T> popAll() {
+        List<T> items = new ArrayList<T>();
+        T item;
+        while((item = pop()) != null)
+            items.add(item);
+        return items;
+    }
+
+    // Pop up to n items, returned in the order they were popped
+    default List<T> popN(int n) {
+        List<T> items = new ArrayList<T>(Math.min(n, 16));
+        T item;
+        while(items.size() < n && (item = pop()) != null)
+            items.add(item);
+        return items;
+    }
+}
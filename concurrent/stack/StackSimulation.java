@@ -1,81 +1,124 @@
 package concurrent.stack;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Driver class for testing my stack implementations
 
 public class StackSimulation {
 
-    public static void main(String[] args) {
+    // Constants
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEADLOCK_TIMEOUT = 5000;
+    private static final int BATCH_SIZE = 16;
+    private static final int POOL_SIZE = 64;
+    private static int numThreads;
 
-        // Constants
-        final int NUM_THREADS = 4;
-        final int DEADLOCK_TIMEOUT = 5000;
+    public static void main(String[] args) {
 
-        // Local vars for timing and input params
-        long timeBefore, timeAfter;
-        boolean deadlocked = false;
+        // Input params
         int k = Integer.parseInt(args[0]);
         int m = Integer.parseInt(args[1]);
-
-        // Initialise two four-thread arrays, to test each stack implementation independently
-        Thread[] tA   = new Thread[NUM_THREADS];
-        Thread[] tB   = new Thread[NUM_THREADS];
-        SimResults rA = new SimResults("Blocking Stack");
-        SimResults rB = new SimResults("Lock Free Stack");
-
-        // Initialise each stack implementation, and their respective testers
-        BlockingStack<Object> sA = new BlockingStack<Object>();
-        LockFreeStack<Object> sB = new LockFreeStack<Object>();
-        StackTester<Object> a    = new StackTester<Object>(sA, k, m, rA);
-        StackTester<Object> b    = new StackTester<Object>(sB, k, m, rB);
-        for(int i=0; i<NUM_THREADS; i++) {
-            tA[i] = new Thread(a);
-            tB[i] = new Thread(b);
-        }
+        numThreads = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_THREADS;
 
         // Print starting info
-        System.out.printf("%d threads\n", NUM_THREADS);
+        System.out.printf("%d threads\n", numThreads);
         System.out.printf("%d operations per thread\n", m);
         System.out.printf("%d%% chance of pop\n", k);
         System.out.printf("%d%% chance of push\n\n", (100-k));
 
-        // Time the execution of all threads in tA
-        timeBefore = System.currentTimeMillis();
-        for (Thread t : tA)
+        // Time each stack implementation independently
+        simulate("Blocking Stack", new BlockingStack<Object>(), k, m);
+        simulate("Lock Free Stack", new LockFreeStack<Object>(), k, m);
+        simulate("Elimination Backoff Stack", new EliminationBackoffStack<Object>(), k, m);
+        simulate("Flat Combining Stack", new FlatCombiningStack<Object>(), k, m);
+        simulate("Bounded Lock Free Stack", new BoundedLockFreeStack<Object>(numThreads * m), k, m);
+
+        // Batched workload, pushing and popping BATCH_SIZE items at a time
+        System.out.printf("Batches of %d items\n\n", BATCH_SIZE);
+        simulate("Blocking Stack (batched)", new BlockingStack<Object>(), k, m, BATCH_SIZE);
+        simulate("Lock Free Stack (batched)", new LockFreeStack<Object>(), k, m, BATCH_SIZE);
+        simulate("Elimination Backoff Stack (batched)", new EliminationBackoffStack<Object>(), k, m, BATCH_SIZE);
+        simulate("Flat Combining Stack (batched)", new FlatCombiningStack<Object>(), k, m, BATCH_SIZE);
+
+        // Free list workload, every thread taking a pooled handle and giving it back
+        System.out.printf("Free list of %d handles\n\n", POOL_SIZE);
+        LockFreeStack<Object> lockFreeStack = new LockFreeStack<Object>();
+        BoundedLockFreeStack<Object> boundedStack = new BoundedLockFreeStack<Object>(POOL_SIZE);
+        BoundedLockFreeLongStack longStack = new BoundedLockFreeLongStack(POOL_SIZE);
+        for(int i=0; i<POOL_SIZE; i++) {
+            lockFreeStack.push(new Object());
+            boundedStack.push(new Object());
+            longStack.push(i);
+        }
+        simulateFreeList("Lock Free Stack", () -> {
+            Object o = lockFreeStack.pop();
+            if(o != null) lockFreeStack.push(o);
+        }, m);
+        simulateFreeList("Bounded Lock Free Stack", () -> {
+            Object o = boundedStack.pop();
+            if(o != null) boundedStack.push(o);
+        }, m);
+        simulateFreeList("Bounded Lock Free Long Stack", () -> {
+            long handle = longStack.pop();
+            if(handle != BoundedLockFreeLongStack.EMPTY) longStack.push(handle);
+        }, m);
+    }
+
+    // Run numThreads threads each running cycle m times, then print the execution
+    // time and the average number of bytes allocated per cycle
+    private static void simulateFreeList(String name, Runnable cycle, int m) {
+        AtomicLong allocatedBytes = new AtomicLong(0);
+        Thread[] threads = new Thread[numThreads];
+        for(int i=0; i<numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                long before = StackTester.allocatedBytes();
+                for(int j=0; j<m; j++)
+                    cycle.run();
+                allocatedBytes.addAndGet(StackTester.allocatedBytes() - before);
+            });
+        }
+
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for (Thread t : threads)
             t.start();
-        for (Thread t : tA) {
+        for (Thread t : threads) {
             try {
-                if (!deadlocked)
-                    t.join(DEADLOCK_TIMEOUT);
-                if (t.isAlive()) {
-                    deadlocked = true;
-                    t.interrupt();
-                }
+                t.join();
             } catch (InterruptedException e) {
                 e.printStackTrace();
             }
         }
+        long timeAfter = System.currentTimeMillis();
+        System.out.printf("%s execution time: %dms, %.1f bytes allocated per op\n", name, timeAfter-timeBefore,
+            (double)allocatedBytes.get() / ((long)numThreads * m));
+    }
 
-        if (!deadlocked) {
-            // Stop timer and print logs
-            timeAfter = System.currentTimeMillis();
-            int actualSize = 0;
-            while(sA.pop() != null) actualSize++;
-            rA.actualSize.set(actualSize);
-            rA.expectedSize.addAndGet(rA.successfulPushes.get() - rA.successfulPops.get());
-            rA.executionTime.set((int)(timeAfter - timeBefore));
-            rA.printInfo();
-        } else {
-            deadlocked = false;
-            System.out.printf("Deadlock detected, forcing continuation\n\n");
-        }
+    // Run numThreads threads sharing one tester with single pushes and pops
+    private static void simulate(String name, Stack<Object> stack, int k, int m) {
+        simulate(name, stack, k, m, 1);
+    }
+
+    // Run numThreads threads sharing one tester, then drain the stack and print the results
+    private static void simulate(String name, Stack<Object> stack, int k, int m, int batchSize) {
+
+        // Initialise the threads, all sharing one tester
+        boolean deadlocked = false;
+        SimResults results = new SimResults(name);
+        StackTester<Object> tester = new StackTester<Object>(stack, k, m, batchSize, results);
+        Thread[] threads = new Thread[numThreads];
+        for(int i=0; i<numThreads; i++)
+            threads[i] = new Thread(tester);
 
-        // Time the execution of all threads in tB
-        timeBefore = System.currentTimeMillis();
-        for (Thread t : tB)
+        // Time the execution of all threads
+        long timeBefore = System.currentTimeMillis();
+        for (Thread t : threads)
             t.start();
-        for (Thread t : tB) {
+        for (Thread t : threads) {
             try {
                 if (!deadlocked)
                     t.join(DEADLOCK_TIMEOUT);
@@ -90,18 +133,29 @@ public class StackSimulation {
 
         if (!deadlocked) {
             // Stop timer and print logs
-            timeAfter = System.currentTimeMillis();
+            long timeAfter = System.currentTimeMillis();
+
+            // Record how operations were completed before draining adds more
+            long eliminatedOps = 0, stackOps = 0;
+            if (stack instanceof EliminationBackoffStack) {
+                eliminatedOps = ((EliminationBackoffStack<Object>)stack).getEliminatedCount();
+                stackOps      = ((EliminationBackoffStack<Object>)stack).getStackCount();
+            }
+
             int actualSize = 0;
-            while(sB.pop() != null) actualSize++;
-            rB.actualSize.set(actualSize);
-            rB.expectedSize.addAndGet(rB.successfulPushes.get() - rB.successfulPops.get());
-            rB.executionTime.set((int)(timeAfter - timeBefore));
-            rB.printInfo();
+            while(stack.pop() != null) actualSize++;
+            results.actualSize.set(actualSize);
+            results.expectedSize.addAndGet(results.successfulPushes.get() - results.successfulPops.get());
+            results.executionTime.set((int)(timeAfter - timeBefore));
+            results.printInfo();
+            if (stack instanceof EliminationBackoffStack) {
+                System.out.printf("Eliminated operations: %d\n", eliminatedOps);
+                System.out.printf("Stack operations: %d\n\n", stackOps);
+            }
         } else {
-            deadlocked = false;
             System.out.printf("Deadlock detected, forcing continuation\n\n");
         }
-    }   
+    }
 }
 
 // This class tests a Stack implementation
@@ -112,23 +166,33 @@ class StackTester<T> implements Runnable {
     private ThreadLocalRandom rng;
     private int k;
     private int m;
+    private int batchSize;
     private SimResults results;
 
-    // Basic constructor with shared Stack reference
+    // Basic constructor with shared Stack reference, pushing and popping single items
     public StackTester(Stack<T> stack, int k, int m, SimResults results) {
-        this.stack   = stack;
-        this.rng     = ThreadLocalRandom.current();
-        this.k       = k;
-        this.m       = m;
-        this.results = results;
+        this(stack, k, m, 1, results);
+    }
+
+    // Constructor where every push and pop covers a batch of batchSize items
+    public StackTester(Stack<T> stack, int k, int m, int batchSize, SimResults results) {
+        this.stack     = stack;
+        this.rng       = ThreadLocalRandom.current();
+        this.k         = k;
+        this.m         = m;
+        this.batchSize = batchSize;
+        this.results   = results;
     }
 
     // Threads constructed using this runnable implementation will simulate usage as below
     @SuppressWarnings("unchecked")
     @Override
     public void run() {
-        for(int i=0; i<m; i++) {
-            if(rng.nextInt(100) >= k) {
+        long before = allocatedBytes();
+        for(int i=0; i<m; i+=batchSize) {                       // m items either way
+            if(batchSize > 1) {
+                batch();
+            } else if(rng.nextInt(100) >= k) {
                 stack.push((T)new Object());                    // Push
                 results.successfulPushes.incrementAndGet();
             } else {
@@ -139,6 +203,28 @@ class StackTester<T> implements Runnable {
 
             }
         }
+        results.allocatedBytes.addAndGet(allocatedBytes() - before);
+    }
+
+    // Push or pop a whole batch, counting each item as one operation
+    @SuppressWarnings("unchecked")
+    private void batch() {
+        if(rng.nextInt(100) >= k) {
+            List<T> items = new ArrayList<T>(batchSize);
+            for(int j=0; j<batchSize; j++)
+                items.add((T)new Object());
+            stack.pushAll(items);                               // Push batch
+            results.successfulPushes.addAndGet(batchSize);
+        } else {
+            int popped = stack.popN(batchSize).size();          // Pop batch
+            results.successfulPops.addAndGet(popped);
+            results.failedPops.addAndGet(batchSize - popped);
+        }
+    }
+
+    // Bytes allocated so far by the current thread
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
     }
 }
 
@@ -154,6 +240,7 @@ class SimResults {
     public AtomicInteger expectedSize;
     public AtomicInteger descrepancies;
     public AtomicInteger executionTime;
+    public AtomicLong allocatedBytes;
 
     // Basic constructor
     public SimResults(String name) {
@@ -170,11 +257,13 @@ class SimResults {
         this.expectedSize         = new AtomicInteger(0);
         this.descrepancies        = new AtomicInteger(0);
         this.executionTime        = new AtomicInteger(0);
+        this.allocatedBytes       = new AtomicLong(0);
     }
 
     public void printInfo() {
         System.out.printf("<< %s >>\n\n", name);
         System.out.printf("Execution time: %dms\n", executionTime.get());
+        System.out.printf("Bytes allocated per op: %.1f\n", (double)allocatedBytes.get() / Math.max(1, numOps()));
         System.out.printf("Successful pushes: %d\n", successfulPushes.get());
         System.out.printf("Failed pushes: %d\n", failedPushes.get());
         System.out.printf("Successful pops: %d\n", successfulPops.get());
@@ -183,4 +272,9 @@ class SimResults {
         System.out.printf("Actual final size: %d\n", actualSize.get());
         System.out.printf("Discrepancies detected: %d\n\n", Math.abs(actualSize.get()-expectedSize.get()));
     }
+
+    // Total number of operations run by the testers
+    private long numOps() {
+        return (long)successfulPushes.get() + failedPushes.get() + successfulPops.get() + failedPops.get();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package concurrent.wait;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Wait strategy which sleeps on a Condition until a producer signals it, for
+// consumers which would rather save the CPU than a few microseconds of latency.
+
+// A consumer which finds nothing registers as a waiter and retries the poll before
+// sleeping, while a producer publishes its item before checking for waiters, so one
+// of them always sees the other. Producers only take the lock to signal when there is
+// a waiter, so adds stay lock free while the consumers are busy.
+
+public class BlockingWaitStrategy implements WaitStrategy {
+
+    // Internal data
+    private final ReentrantLock lock;
+    private final Condition itemAdded;
+    private final AtomicInteger waiters;
+
+    // Basic constructor
+    public BlockingWaitStrategy() {
+        lock      = new ReentrantLock();
+        itemAdded = lock.newCondition();
+        waiters   = new AtomicInteger(0);
+    }
+
+    // Sleep until an item arrives or the timeout passes
+    @Override
+    public <T> T waitFor(Supplier<T> poll, long timeoutNanos) {
+        T item = poll.get();
+        if(item != null)
+            return item;
+
+        long remaining = timeoutNanos;
+        lock.lock();
+        waiters.incrementAndGet();
+        try {
+            while((item = poll.get()) == null) {
+                if(remaining <= 0)
+                    return null;                             // Timed out
+                remaining = itemAdded.awaitNanos(remaining);
+            }
+            return item;
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread was interrupted while waiting for an item", e);
+        } finally {
+            waiters.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    // Wake every waiting consumer, if there are any
+    @Override
+    public void signalAllWhenBlocking() {
+        VarHandle.fullFence();                               // Order the add before reading waiters
+        if(waiters.get() == 0)
+            return;
+        lock.lock();
+        try {
+            itemAdded.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package concurrent.wait;
+import java.util.function.Supplier;
+
+// Wait strategy which retries in a tight loop, for the lowest latency when each
+// consumer has a core to itself. It burns a whole core while waiting.
+
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+    // Spin until an item arrives or the timeout passes
+    @Override
+    public <T> T waitFor(Supplier<T> poll, long timeoutNanos) {
+        long start = System.nanoTime();
+        T item;
+        while((item = poll.get()) == null) {
+            if(System.nanoTime() - start >= timeoutNanos)
+                return null;                                 // Timed out
+            Thread.onSpinWait();
+        }
+        return item;
+    }
+}
@@ -0,0 +1,60 @@
+package concurrent.wait;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Wait strategy which spins, then yields, then parks for a fixed time between
+// retries, so a consumer which has been idle for a while costs next to no CPU. Items
+// which arrive while it is parked wait for the park to end, as producers never
+// signal it.
+
+public class SpinThenParkWaitStrategy implements WaitStrategy {
+
+    // Default tuning
+    private static final int DEFAULT_SPIN_TRIES  = 100;
+    private static final int DEFAULT_YIELD_TRIES = 100;
+    private static final long DEFAULT_PARK_NANOS = 50_000;
+
+    // Internal data
+    private final int spinTries;
+    private final int yieldTries;
+    private final long parkNanos;
+
+    // Basic constructor with the default tuning
+    public SpinThenParkWaitStrategy() {
+        this(DEFAULT_SPIN_TRIES, DEFAULT_YIELD_TRIES, DEFAULT_PARK_NANOS);
+    }
+
+    // Constructor with the number of tries to spin and then yield for, and how long
+    // to park for after that
+    public SpinThenParkWaitStrategy(int spinTries, int yieldTries, long parkNanos) {
+        if(spinTries < 0 || yieldTries < 0 || parkNanos <= 0)
+            throw new IllegalArgumentException("Invalid tuning: " + spinTries + ", " + yieldTries + ", " + parkNanos);
+        this.spinTries  = spinTries;
+        this.yieldTries = yieldTries;
+        this.parkNanos  = parkNanos;
+    }
+
+    // Spin, then yield, then park, until an item arrives or the timeout passes
+    @Override
+    public <T> T waitFor(Supplier<T> poll, long timeoutNanos) {
+        long start = System.nanoTime();
+        T item;
+        for(int tries = 0; (item = poll.get()) == null; tries++) {
+            long remaining = timeoutNanos - (System.nanoTime() - start);
+            if(remaining <= 0)
+                return null;                                 // Timed out
+            if(tries < spinTries) {
+                Thread.onSpinWait();
+            } else if(tries < spinTries + yieldTries) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(Math.min(parkNanos, remaining));
+                if(Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Thread was interrupted while waiting for an item");
+                }
+            }
+        }
+        return item;
+    }
+}
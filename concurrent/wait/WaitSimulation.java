@@ -0,0 +1,93 @@
+package concurrent.wait;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import concurrent.deque.BlockingDeque;
+import concurrent.queue.BlockingQueue;
+import concurrent.queue.MichaelScottQueue;
+
+// Driver class for comparing how consumers wait on my queues and deques
+
+public class WaitSimulation {
+
+    // Constants
+    private static final int BURST_SIZE = 100;
+
+    public static void main(String[] args) {
+
+        // Input params
+        int k = Integer.parseInt(args[0]);
+        int m = Integer.parseInt(args[1]);
+
+        // Print starting info
+        System.out.printf("1 producer, 1 consumer\n");
+        System.out.printf("%d items, added in bursts of %d\n", m, BURST_SIZE);
+        System.out.printf("%dus pause between bursts\n\n", k);
+
+        // The queue's own wait() and notifyAll(), and a lock free queue with no way to wait
+        BlockingQueue<Long> blocking = new BlockingQueue<Long>();
+        simulate("Blocking Queue (wait/notifyAll)", blocking::add, blocking::remove, k, m);
+        MichaelScottQueue<Long> polled = new MichaelScottQueue<Long>();
+        simulate("Michael Scott Queue (poll and yield)", polled::add, () -> {
+            Long item;
+            while((item = polled.poll()) == null)
+                Thread.yield();
+            return item;
+        }, k, m);
+
+        // Each strategy waiting on a lock free queue, then on a deque
+        WaitStrategy[] strategies = { new BusySpinWaitStrategy(), new YieldingWaitStrategy(),
+            new SpinThenParkWaitStrategy(), new BlockingWaitStrategy() };
+        for(WaitStrategy strategy : strategies) {
+            WaitingQueue<Long> queue = new WaitingQueue<Long>(new MichaelScottQueue<Long>(), strategy);
+            simulate("Michael Scott Queue (" + strategy.getClass().getSimpleName() + ")", queue::add, queue::take, k, m);
+        }
+        System.out.println();
+        for(WaitStrategy strategy : strategies) {
+            WaitingDeque<Long> deque = new WaitingDeque<Long>(new BlockingDeque<Long>(), strategy);
+            simulate("Blocking Deque (" + strategy.getClass().getSimpleName() + ")", deque::addLast, deque::removeFirst, k, m);
+        }
+    }
+
+    // Run a producer adding m timestamps in bursts, pausing k microseconds between
+    // them, and a consumer waiting for each. Print the execution time, the mean time
+    // from add to remove, and how much CPU the consumer burnt waiting.
+    private static void simulate(String name, Consumer<Long> add, Supplier<Long> remove, int k, int m) {
+        long[] latency = new long[1];
+        long[] cpuTime = new long[1];
+        Thread producer = new Thread(() -> {
+            for(int i=0; i<m; i++) {
+                add.accept(System.nanoTime());
+                if((i + 1) % BURST_SIZE == 0 && k > 0)
+                    LockSupport.parkNanos(k * 1000L);
+            }
+        });
+        Thread consumer = new Thread(() -> {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            long cpuBefore = bean.getCurrentThreadCpuTime();
+            long total = 0;
+            for(int i=0; i<m; i++)
+                total += System.nanoTime() - remove.get();
+            latency[0] = total;
+            cpuTime[0] = bean.getCurrentThreadCpuTime() - cpuBefore;
+        });
+
+        // Time the execution of both threads
+        long timeBefore = System.currentTimeMillis();
+        consumer.start();
+        producer.start();
+        try {
+            producer.join();
+            consumer.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        long timeAfter = System.currentTimeMillis();
+        System.out.printf("%s execution time: %dms, mean latency: %.1fus, consumer CPU time: %dms\n", name,
+            timeAfter-timeBefore, latency[0] / 1000.0 / m, cpuTime[0] / 1_000_000);
+    }
+}
@@ -0,0 +1,17 @@
+package concurrent.wait;
+import java.util.function.Supplier;
+
+// Strategy for a consumer to wait with when a structure has nothing for it yet, in the
+// style of the Disruptor's wait strategies. The consumer passes in a poll which never
+// waits, and the strategy retries it until it returns an item or the timeout passes,
+// spinning, yielding, parking or blocking in between. Producers call
+// signalAllWhenBlocking() after each add, which only a blocking strategy needs.
+
+public interface WaitStrategy {
+
+    // Retry poll until it returns an item, or return null once timeoutNanos have passed
+    <T> T waitFor(Supplier<T> poll, long timeoutNanos);
+
+    // Wake any consumers blocked in waitFor()
+    default void signalAllWhenBlocking() {}
+}
@@ -0,0 +1,101 @@
+package concurrent.wait;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import concurrent.deque.Deque;
+
+// Thread-safe wrapper which lets consumers of any Deque wait for items at either end
+// with a chosen WaitStrategy, in the same way as WaitingQueue. removeFirst() and
+// removeLast() wait with the strategy, pollFirst() and pollLast() never wait, and
+// their timed versions return null once the timeout passes.
+
+public class WaitingDeque<T> implements Deque<T> {
+
+    // Internal data
+    private final Deque<T> deque;
+    private final WaitStrategy strategy;
+    private final Supplier<T> pollFirst;
+    private final Supplier<T> pollLast;
+
+    // Constructor with the deque to wrap and the strategy its consumers wait with
+    public WaitingDeque(Deque<T> deque, WaitStrategy strategy) {
+        this.deque     = deque;
+        this.strategy  = strategy;
+        this.pollFirst = deque::pollFirst;
+        this.pollLast  = deque::pollLast;
+    }
+
+    // Thread-safe add to the front
+    @Override
+    public void addFirst(T item) {
+        deque.addFirst(item);
+        strategy.signalAllWhenBlocking();
+    }
+
+    // Thread-safe add to the back
+    @Override
+    public void addLast(T item) {
+        deque.addLast(item);
+        strategy.signalAllWhenBlocking();
+    }
+
+    // Thread-safe remove from the front, waiting for an item if the deque is empty
+    @Override
+    public T removeFirst() {
+        return strategy.waitFor(pollFirst, Long.MAX_VALUE);
+    }
+
+    // Thread-safe remove from the back, waiting for an item if the deque is empty
+    @Override
+    public T removeLast() {
+        return strategy.waitFor(pollLast, Long.MAX_VALUE);
+    }
+
+    // Thread-safe remove from the front, returning null if the deque is empty
+    @Override
+    public T pollFirst() {
+        return deque.pollFirst();
+    }
+
+    // Thread-safe remove from the back, returning null if the deque is empty
+    @Override
+    public T pollLast() {
+        return deque.pollLast();
+    }
+
+    // Thread-safe remove from the front, waiting up to the timeout for an item and
+    // returning null if none arrives
+    public T pollFirst(long timeout, TimeUnit unit) {
+        return strategy.waitFor(pollFirst, unit.toNanos(timeout));
+    }
+
+    // Thread-safe remove from the back, waiting up to the timeout for an item and
+    // returning null if none arrives
+    public T pollLast(long timeout, TimeUnit unit) {
+        return strategy.waitFor(pollLast, unit.toNanos(timeout));
+    }
+
+    // Thread-safe get of the front item, as the wrapped deque does it
+    @Override
+    public T getFirst() {
+        return deque.getFirst();
+    }
+
+    // Thread-safe get of the back item, as the wrapped deque does it
+    @Override
+    public T getLast() {
+        return deque.getLast();
+    }
+
+    // Helper method for the simulation
+    @Override
+    public boolean isEmpty() {
+        return deque.isEmpty();
+    }
+
+    // Helper method for retrieving deque size
+    @Override
+    public int size() {
+        return deque.size();
+    }
+}
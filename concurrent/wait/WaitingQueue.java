@@ -0,0 +1,84 @@
+package concurrent.wait;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import concurrent.queue.Queue;
+
+// Thread-safe wrapper which lets consumers of any Queue wait for items with a chosen
+// WaitStrategy, rather than polling or relying on the queue's own wait() and notifyAll().
+
+// Adds go straight to the queue and then signal the strategy. take() and remove() wait
+// with the strategy until an item arrives, poll() never waits, and poll() with a
+// timeout gives up and returns null once it passes. The wrapped queue's thread rules
+// still apply, so the consumer side of a single consumer queue must stay on one thread.
+
+public class WaitingQueue<T> implements Queue<T> {
+
+    // Internal data
+    private final Queue<T> queue;
+    private final WaitStrategy strategy;
+    private final Supplier<T> poll;
+
+    // Constructor with the queue to wrap and the strategy its consumers wait with
+    public WaitingQueue(Queue<T> queue, WaitStrategy strategy) {
+        this.queue    = queue;
+        this.strategy = strategy;
+        this.poll     = queue::poll;
+    }
+
+    // Thread-safe add
+    @Override
+    public void add(T item) {
+        queue.add(item);
+        strategy.signalAllWhenBlocking();
+    }
+
+    // Thread-safe batch add
+    @Override
+    public void addAll(Collection<? extends T> items) {
+        queue.addAll(items);
+        strategy.signalAllWhenBlocking();
+    }
+
+    // Thread-safe remove, waiting for an item if the queue is empty
+    @Override
+    public T remove() {
+        return take();
+    }
+
+    // Thread-safe remove, waiting for an item if the queue is empty
+    public T take() {
+        return strategy.waitFor(poll, Long.MAX_VALUE);
+    }
+
+    // Thread-safe remove, returning null if the queue is empty
+    @Override
+    public T poll() {
+        return queue.poll();
+    }
+
+    // Thread-safe remove, waiting up to the timeout for an item and returning null if
+    // none arrives
+    public T poll(long timeout, TimeUnit unit) {
+        return strategy.waitFor(poll, unit.toNanos(timeout));
+    }
+
+    // Thread-safe batch remove, which doesn't wait if the queue is empty
+    @Override
+    public int drainTo(Collection<? super T> items, int maxElements) {
+        return queue.drainTo(items, maxElements);
+    }
+
+    // Thread-safe element, as the wrapped queue does it
+    @Override
+    public T element() {
+        return queue.element();
+    }
+
+    // Helper method for the simulation
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+}
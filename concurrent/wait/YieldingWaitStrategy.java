@@ -0,0 +1,27 @@
+package concurrent.wait;
+import java.util.function.Supplier;
+
+// Wait strategy which spins briefly and then yields between retries, so waiting
+// consumers give way to producers sharing their cores while still waking quickly.
+
+public class YieldingWaitStrategy implements WaitStrategy {
+
+    // Constants
+    private static final int SPIN_TRIES = 100;
+
+    // Spin, then yield, until an item arrives or the timeout passes
+    @Override
+    public <T> T waitFor(Supplier<T> poll, long timeoutNanos) {
+        long start = System.nanoTime();
+        T item;
+        for(int tries = 0; (item = poll.get()) == null; tries++) {
+            if(System.nanoTime() - start >= timeoutNanos)
+                return null;                                 // Timed out
+            if(tries < SPIN_TRIES)
+                Thread.onSpinWait();
+            else
+                Thread.yield();
+        }
+        return item;
+    }
+}